@@ -0,0 +1,305 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A list that only grows at its end, for many threads appending to it while
+ * others read the positions already published.
+ *
+ * Like a BDLList, it's a chain of nodes, each holding a block of elements.
+ * All the blocks have the same capacity and only the last one fills up, so
+ * the node holding a position is known from the position alone, through a
+ * directory of the nodes that never moves them. Nothing locks:
+ * - A producer claims a slot in the last block with an atomic increment of
+ * the number of slots claimed, and writes its element there. When the block
+ * is full, it links a new last node, holding its element already, with a
+ * CAS on the link of the old one, and helps any other producer that linked
+ * one first to finish its job.
+ * - Elements become visible in order: the size of the list is the length of
+ * the prefix of positions already written, and every producer moves it
+ * forward over the written positions it finds after its own.
+ * - Readers read the size, and then the directory and the block, in a
+ * constant number of steps, so any position below the size they read holds
+ * its element.
+ *
+ * Null elements are not allowed, as a null slot is a slot claimed but not
+ * yet written.
+ *
+ * Positions are ints, so the list holds at most Integer.MAX_VALUE elements.
+ * The directory has buckets of twice as many nodes as the one before, the
+ * last one cut to the nodes that many elements need, so it never holds more
+ * than twice the nodes of the list, nor more than the nodes of a full list.
+ *
+ * @param <T> the type of the elements
+ */
+public class AppendOnlyBDLList<T> implements Iterable<T> {
+
+	/*
+	 * A node of the chain. The number of slots claimed may exceed the
+	 * capacity, when producers race for the last slots.
+	 */
+	private static final class Node<T> {
+
+		/* *** Fields *** */
+		private final AtomicReferenceArray<T> slots;
+		private final AtomicInteger claimed;
+		private final AtomicReference<Node<T>> next = new AtomicReference<Node<T>>();
+		//Position of the node in the chain
+		private final int number;
+
+		/* *** Constructor *** */
+		/**
+		 * Constructor to a new node holding a first value.
+		 * @param capacity - the capacity of the block
+		 * @param number - the position of the node in the chain
+		 * @param value - the value, null to leave the node empty
+		 */
+		private Node(int capacity, int number, T value){
+			this.slots = new AtomicReferenceArray<T>(capacity);
+			this.number = number;
+			if(value == null){
+				this.claimed = new AtomicInteger(0);
+			} else {
+				this.claimed = new AtomicInteger(1);
+				slots.lazySet(0, value);
+			}
+		}
+	}
+
+	/* ************ FIELDS ************* */
+	private final int capacity;
+	private final Node<T> first;
+	//The last node, or a node shortly before it, while a producer links one
+	private final AtomicReference<Node<T>> last;
+	//Length of the prefix of positions written
+	private final AtomicInteger published = new AtomicInteger(0);
+	//Buckets of nodes by number, the bth one holding up to FIRST_BUCKET << b
+	private final AtomicReferenceArray<AtomicReferenceArray<Node<T>>> directory =
+			new AtomicReferenceArray<AtomicReferenceArray<Node<T>>>(BUCKETS);
+	//Number of the node holding the position Integer.MAX_VALUE - 1
+	private final int lastNumber;
+
+	/* ********* FINAL FIELDS ********** */
+	private final static int DEFAULT_CAPACITY = 256;
+	//Nodes in the first bucket of the directory, a power of two
+	private final static int FIRST_BUCKET = 64;
+	//Enough for nodes numbered up to Integer.MAX_VALUE - 1
+	private final static int BUCKETS = 32 - Integer.numberOfTrailingZeros(FIRST_BUCKET);
+
+	/* ********* CONSTRUCTORS ********** */
+
+	/**
+	 * Constructor to an empty list whose blocks hold DEFAULT_CAPACITY
+	 * elements.
+	 */
+	public AppendOnlyBDLList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor to an empty list whose blocks hold a given number of
+	 * elements. Larger blocks mean producers link nodes less often.
+	 * @param capacity - the capacity of the blocks
+	 * @requires capacity > 0
+	 */
+	public AppendOnlyBDLList(int capacity) {
+		this.capacity = capacity;
+		this.lastNumber = (Integer.MAX_VALUE - 1) / capacity;
+		this.first = new Node<T>(capacity, 0, null);
+		this.last = new AtomicReference<Node<T>>(first);
+		install(first);
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * What's the capacity of the blocks of this list?
+	 * @return The number of elements each node can hold.
+	 */
+	public int blockCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Is this list empty?
+	 * @return true if no element was published yet, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * What's the current size of this list?
+	 * Elements still being added by other threads don't count until every
+	 * element before them is written.
+	 * @return The number of elements published.
+	 */
+	public int size() {
+		return published.get();
+	}
+
+	/**
+	 * What's the element at the indexth position in the list?
+	 * It doesn't wait for any other thread.
+	 * @param index - the index
+	 * @throws IndexOutOfBoundsException if index isn't below size()
+	 * @return The element at the indexth position.
+	 */
+	public T get(int index) {
+		if(index < 0 || index >= published.get())
+			throw new IndexOutOfBoundsException("Index: " + index);
+		//The node was installed before its first position was published
+		return nodeOrNull(index / capacity).slots.get(index % capacity);
+	}
+
+	/**
+	 * Add value to the end of the list.
+	 * @param value - the value
+	 * @requires value != null && size() < Integer.MAX_VALUE
+	 * @ensures value is published, at a position after every element
+	 * published before this call.
+	 */
+	public void add(T value) {
+		if(value == null)
+			throw new NullPointerException();
+		while(true){
+			Node<T> tail = last.get();
+			int i = tail.claimed.getAndIncrement();
+			if(i < capacity){
+				//A volatile write, so that either this producer sees the
+				//element before its own, or the one writing it sees this one
+				tail.slots.set(i, value);
+				break;
+			}
+			//The block is full: link a new node holding value, or help
+			Node<T> next = tail.next.get();
+			if(next == null){
+				Node<T> node = new Node<T>(capacity, tail.number + 1, value);
+				if(tail.next.compareAndSet(null, node)){
+					install(node);
+					last.compareAndSet(tail, node);
+					break;
+				}
+				next = tail.next.get();
+			}
+			install(next);
+			last.compareAndSet(tail, next);
+		}
+		publish();
+	}
+
+	/**
+	 * Moves the size of the list forward, over the positions already
+	 * written.
+	 * @ensures If the position at the old size was written, size() moved
+	 * forward.
+	 */
+	private void publish() {
+		int p = published.get();
+		while(true){
+			Node<T> node = nodeOrNull(p / capacity);
+			if(node == null){ //The node of p is linked, but not yet installed
+				Node<T> prev = nodeOrNull(p / capacity - 1);
+				node = prev.next.get();
+				if(node == null)
+					return;
+				install(node);
+			}
+			if(node.slots.get(p % capacity) == null)
+				return;
+			if(published.compareAndSet(p, p + 1))
+				p++;
+			else
+				p = published.get();
+		}
+	}
+
+	/**
+	 * Puts a node in the directory, if no other thread did it first.
+	 * @param node - the node
+	 */
+	private void install(Node<T> node) {
+		//A long, as numbers near Integer.MAX_VALUE overflow an int
+		long k = (long) node.number + FIRST_BUCKET;
+		int high = 63 - Long.numberOfLeadingZeros(k);
+		int b = high - Integer.numberOfTrailingZeros(FIRST_BUCKET);
+		AtomicReferenceArray<Node<T>> bucket = directory.get(b);
+		if(bucket == null){
+			directory.compareAndSet(b, null, new AtomicReferenceArray<Node<T>>(bucketLength(b)));
+			bucket = directory.get(b);
+		}
+		bucket.compareAndSet((int) (k - (1L << high)), null, node);
+	}
+
+	/**
+	 * How many nodes does a bucket of the directory hold?
+	 * @param b - the bucket
+	 * @requires b >= 0 && b < BUCKETS
+	 * @return FIRST_BUCKET << b, or less for the bucket of lastNumber, so
+	 * that it ends there.
+	 */
+	private int bucketLength(int b) {
+		long start = (long) FIRST_BUCKET << b;
+		return (int) Math.min(start, (long) lastNumber + FIRST_BUCKET + 1 - start);
+	}
+
+	/**
+	 * What's the node of a given number, if installed?
+	 * @param number - the number of the node
+	 * @return The node, null if it isn't in the directory yet, or the list
+	 * can't have it.
+	 */
+	private Node<T> nodeOrNull(int number) {
+		if(number > lastNumber)
+			return null;
+		long k = (long) number + FIRST_BUCKET;
+		int high = 63 - Long.numberOfLeadingZeros(k);
+		AtomicReferenceArray<Node<T>> bucket =
+				directory.get(high - Integer.numberOfTrailingZeros(FIRST_BUCKET));
+		return bucket == null ? null : bucket.get((int) (k - (1L << high)));
+	}
+
+	/**
+	 * An iterator over the elements published when it's created, walking
+	 * the chain of nodes.
+	 * @return An iterator of this list.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		final int end = size();
+		return new Iterator<T>() {
+			private Node<T> node = first;
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < end;
+			}
+
+			@Override
+			public T next() {
+				if(index >= end)
+					throw new NoSuchElementException();
+				int i = index++ % capacity;
+				T result = node.slots.get(i);
+				if(i == capacity - 1)
+					node = node.next.get();
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Textual representation of the elements published.
+	 */
+	@Override
+	public String toString() {
+		StringJoiner result = new StringJoiner(", ", "[", "]");
+		for(T value : this)
+			result.add(value.toString());
+		return result.toString();
+	}
+}
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A class to race producers appending to an AppendOnlyBDLList against
+ * readers, checking what every reader sees and what the list holds at the
+ * end.
+ *
+ * Each producer appends count elements of its own, numbered from 0, in
+ * order. Meanwhile the readers:
+ * - check that size() never goes back;
+ * - get positions below the size they read, and check that they hold an
+ * element;
+ * - iterate over the list, and check that every producer's elements in it
+ * are its first ones, in order, as the list is a prefix of the positions
+ * claimed.
+ * At the end, the list must hold the count elements of every producer, each
+ * producer's in order.
+ *
+ * It runs on lists of a few block capacities, small ones so that producers
+ * race for the links to new nodes, and throws an AssertionError at the
+ * first failure.
+ *
+ * Usage: java AppendOnlyBDLListStressTest [count] [producers] [readers]
+ */
+public class AppendOnlyBDLListStressTest {
+
+	public static void main(String[] args) throws InterruptedException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int readers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		for (int capacity : CAPACITIES)
+			new AppendOnlyBDLListStressTest(capacity, count, producers, readers).run();
+	}
+
+	/*
+	 * Block capacities of the lists raced on.
+	 */
+	private static final int[] CAPACITIES = {1, 2, 7, 256};
+
+	private final int count;
+	private final int producers;
+	private final int readers;
+	private final AppendOnlyBDLList<Integer> list;
+	//The first failure of any thread
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private volatile boolean done = false;
+
+
+	public AppendOnlyBDLListStressTest(int capacity, int count, int producers,
+			int readers) {
+		this.count = count;
+		this.producers = producers;
+		this.readers = readers;
+		this.list = new AppendOnlyBDLList<Integer>(capacity);
+	}
+
+	/**
+	 * Runs the producers until they append all their elements, and the
+	 * readers until then, and checks the list they leave.
+	 * @throws InterruptedException if interrupted while waiting for the
+	 * threads
+	 */
+	public void run() throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] reads = new long[readers];
+		List<Thread> writers = new ArrayList<Thread>();
+		for (int t = 0; t < producers; t++) {
+			final int producer = t;
+			writers.add(thread(start, () -> produce(producer)));
+		}
+		List<Thread> threads = new ArrayList<Thread>(writers);
+		for (int t = 0; t < readers; t++) {
+			final int reader = t;
+			threads.add(thread(start, () -> reads[reader] = read(reader)));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		start.countDown();
+		for (Thread thread : writers)
+			thread.join();
+		done = true;
+		for (Thread thread : threads)
+			thread.join();
+		if (failure.get() != null)
+			throw new AssertionError("a thread failed", failure.get());
+
+		if (list.size() != producers * count)
+			throw new AssertionError("size " + list.size() + " instead of "
+					+ producers * count);
+		int[] next = inOrder(list.iterator(), list.size());
+		for (int t = 0; t < producers; t++)
+			if (next[t] != count)
+				throw new AssertionError("producer " + t + " has " + next[t]
+						+ " elements instead of " + count);
+		long total = 0;
+		for (long r : reads)
+			total += r;
+		System.out.printf("OK: capacity %d, %d elements by %d producers, "
+				+ "%d reads by %d readers%n", list.blockCapacity(), list.size(),
+				producers, total, readers);
+	}
+
+	private Thread thread(final CountDownLatch start, final Runnable body) {
+		return new Thread(() -> {
+			try {
+				start.await();
+				body.run();
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+				done = true;
+			}
+		});
+	}
+
+	/*
+	 * Appends the elements of a producer, its ith one being
+	 * i * producers + producer, so that they are distinct from the others.
+	 */
+	private void produce(int producer) {
+		for (int i = 0; i < count && !done; i++)
+			list.add(i * producers + producer);
+	}
+
+	/*
+	 * Reads at random, checking what it sees, until the producers are done.
+	 * Returns the number of reads.
+	 */
+	private long read(int reader) {
+		Random rand = new Random(reader);
+		long result = 0;
+		int seen = 0;
+		while (!done) {
+			int size = list.size();
+			if (size < seen)
+				throw new AssertionError("size went back from " + seen + " to " + size);
+			seen = size;
+			if (size > 0) {
+				if (rand.nextInt(1000) == 0) {
+					inOrder(list.iterator(), size);
+				} else {
+					int index = rand.nextInt(size);
+					if (list.get(index) == null)
+						throw new AssertionError("get(" + index + ") is null");
+				}
+			}
+			result++;
+		}
+		return result;
+	}
+
+	/*
+	 * Checks that an iterator hands out at least size elements, and no
+	 * null, and that each producer's are its first ones, in order. Returns
+	 * how many elements of each producer it handed out.
+	 */
+	private int[] inOrder(Iterator<Integer> it, int size) {
+		int[] next = new int[producers];
+		int index = 0;
+		while (it.hasNext()) {
+			Integer value = it.next();
+			if (value == null)
+				throw new AssertionError("position " + index + " is null");
+			int producer = value % producers;
+			if (value / producers != next[producer])
+				throw new AssertionError("position " + index + " holds element "
+						+ value / producers + " of producer " + producer
+						+ " instead of " + next[producer]);
+			next[producer]++;
+			index++;
+		}
+		if (index < size)
+			throw new AssertionError("iterated over " + index + " of " + size
+					+ " elements");
+		return next;
+	}
+}
@@ -1,19 +1,39 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class BDLList<T> implements Iterable<T>, Cloneable{
+public class BDLList<T> extends AbstractCollection<T> implements Deque<T>, Cloneable{
 	/*
 	 * A node of the linked list holding consecutive 
 	 * elements of the list in a Block.
 	 */
-	private static final class Node<T>{
+	private static final class Node<T> extends NodeIndex.Entry<Node<T>>{
 		
 		/* *** Fields *** */
-		private Node<T> next;
-		private Node<T> prev;
 		private Block<T> elem;
-		//Size of the list until this node (included)
-		private int localSize = 0;
+		//elem may belong to a clone of the list too, so it's read only
+		private boolean shared;
 		
 		/* *** Constructor *** */
 		/**
@@ -30,36 +50,20 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 			
 		}
 		
-		/**
-		 * Constructor to a new node.
-		 * @param elem - element
-		 * @param next - next node
-		 * @param prev - previous node
-		 * @param localSize - Size of the previous nodes + this node
-		 */
-		private Node(Block<T> elem, Node<T> next, Node<T> prev, int localSize){
-			
-			this.elem = elem;
-			this.next = next;
-			this.prev = prev;
-			this.localSize = localSize;
-			
-		}
-		
 		/* *** Methods *** */
 		/**
-		 * Adds the value to the indexth position of the list this node 
-		 * belongs to.
-		 * @param index - the position
+		 * Adds the value to the ith position of this node.
+		 * @param i - the position in this node
 		 * @param value - the value
-		 * @requires index >= 0 && index < localSize && value != null
-		 * @ensures It adds value to the indexth position of the list.
+		 * @requires i >= 0 && i <= size() && !isFull() && value != null
+		 * @ensures It adds value to the ith position of this node.
 		 */
-		private void add(int index, T value){
-			elem.add(aIndex(index), value);
-			localSize++;
-			if(this.next != null)
-				refresh(this);
+		private void add(int i, T value){
+			own();
+			if(i == size())
+				elem.addLast(value);
+			else
+				elem.add(i, value);
 		}
 		
 		/**
@@ -69,8 +73,8 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 		 * @ensures It adds value to the end of the node.
 		 */
 		private void addL(T value){
+			own();
 			elem.addLast(value);
-			localSize++;
 		}
 		
 		/**
@@ -80,47 +84,132 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 		 * @ensures It adds value to the beginning of the node.
 		 */
 		private void addF(T value){
+			own();
 			elem.addFirst(value);
-			localSize++;
+		}
+		
+		/**
+		 * Removes the ith element of this node.
+		 * @param i - the position in this node
+		 * @requires i >= 0 && i < size()
+		 */
+		private void remove(int i){
+			own();
+			elem.remove(i);
+		}
+		
+		/**
+		 * Removes the elements of this node from the fromth position, 
+		 * inclusive, to the toth position, exclusive.
+		 * @param from - the position of the first element to remove
+		 * @param to - the position after the last element to remove
+		 * @requires 0 <= from && from <= to && to <= size()
+		 */
+		private void removeRange(int from, int to){
+			own();
+			elem.removeRange(from, to);
+		}
+		
+		/**
+		 * Sorts the elements of this node, in place.
+		 * @param c - the comparator
+		 */
+		private void sort(Comparator<? super T> c){
+			own();
+			elem.sort(c);
+		}
+		
+		/**
+		 * Performs an action on every element of this node, in order.
+		 * @param action - the action
+		 */
+		private void forEach(Consumer<? super T> action){
+			for(int i = 0; i < size(); i++)
+				action.accept(elem.get(i));
+		}
+		
+		/**
+		 * Replaces every element of this node with the result of an operator
+		 * on it.
+		 * @param operator - the operator
+		 * @requires operator never returns null
+		 */
+		private void replaceAll(UnaryOperator<T> operator){
+			own();
+			for(int i = 0; i < size(); i++)
+				elem.set(i, operator.apply(elem.get(i)));
+		}
+		
+		/**
+		 * Marks the elements of this node that pass a test.
+		 * @param filter - the test
+		 * @param marks - the marks, by position in the list
+		 * @param nodeBase - the position of the first element of this node
+		 */
+		private void mark(Predicate<? super T> filter, boolean[] marks, int nodeBase){
+			for(int i = 0; i < size(); i++)
+				marks[nodeBase + i] = filter.test(elem.get(i));
+		}
+		
+		/**
+		 * Removes the marked elements of this node, keeping the order of the
+		 * others.
+		 * @param marks - the marks, by position in the list
+		 * @param nodeBase - the position of the first element of this node
+		 * @return The number of elements removed.
+		 */
+		private int sweep(boolean[] marks, int nodeBase){
+			int kept = 0;
+			for(int i = 0; i < size(); i++){
+				if(!marks[nodeBase + i]){
+					if(kept < i)
+						set(kept, elem.get(i));
+					kept++;
+				}
+			}
+			int removed = size() - kept;
+			if(removed > 0)
+				removeRange(kept, size());
+			return removed;
 		}
 		
 		/**
 		 * Removes the last element of this node.
 		 */
 		private void removeL(){
+			own();
 			elem.removeLast();
-			localSize--;
 		}
 		
 		/**
 		 * Removes the first element of this node.
 		 */
 		private void removeF(){
+			own();
 			elem.removeFirst();
-			localSize--;
 		}
 		
 		/**
-		 * Sets the indexth position of the list this node belongs to to value.
-		 * @param index - the index
+		 * Sets the ith position of this node to value.
+		 * @param i - the position in this node
 		 * @param value - the value
-		 * @requires index >= 0 && index < localSize && value != null
-		 * @ensures It sets value to the indexth position of the list.
+		 * @requires i >= 0 && i < size() && value != null
+		 * @ensures It sets value to the ith position of this node.
 		 */
-		private void set(int index, T value){
-			elem.set(aIndex(index), value);
+		private void set(int i, T value){
+			own();
+			elem.set(i, value);
 		}
 		
 		/**
-		 * What's the indexth value of the list this node belongs to?
-		 * @param index - the index
-		 * @requires index >= 0 && index < localSize
-		 * @ensures It returns the value of the indexth position of the list
-		 * this node belongs to.
-		 * @return The value of the indexth position.
+		 * What's the ith value of this node?
+		 * @param i - the position in this node
+		 * @requires i >= 0 && i < size()
+		 * @ensures It returns the value of the ith position of this node.
+		 * @return The value of the ith position.
 		 */
-		private T get(int index){
-			return elem.get(aIndex(index));
+		private T get(int i){
+			return elem.get(i);
 		}
 		
 		/**
@@ -143,18 +232,11 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 		 * What's the size of the Block of this node?
 		 * @return The size of the Block of this node.
 		 */
-		private int size(){
+		@Override
+		int size(){
 			return elem.size();
 		}
 		
-		/**
-		 * What's the size of the list until this node (included)?
-		 * @return The size of the list until this node (included).
-		 */
-		private int length(){
-			return localSize;
-		}
-		
 		/**
 		 * Is this node full?
 		 * @return true if full, false otherwise.
@@ -164,63 +246,32 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 		}
 		
 		/**
-		 * Converts the index of list to an index of this specific node
-		 * @param index - the index
-		 * @requires index >= 0 && index < localSize && index > prev.localSize
-		 * @ensures It returns the correct index equivalent to this node.
-		 * @return The index equivalent to this node.
+		 * Makes elem a block of this node only, copying it if it's shared.
 		 */
-		private int aIndex(int index){
-			return index+size()-length();
+		private void own(){
+			if(shared){
+				elem = elem.clone();
+				shared = false;
+			}
 		}
 		
 		/**
 		 * Shift one value (last one) recursivly to the right (to the next node)
-		 * from this node until target, and adds a value to the indexth position
+		 * from this node until target, and adds a value to the ith position
 		 * in target.
 		 * @param target - the node needing room
-		 * @param index - the index
+		 * @param i - the position in target
 		 * @param value - the value
-		 * @requires target != null && index <= 0 && index < localSize
+		 * @requires target != null && i >= 0 && i < target.size()
 		 * @ensures It will shift the values accordingly.
 		 */
-		private void shiftr(Node<T> target, int index, T value){
+		private void shiftr(Node<T> target, int i, T value){
 			if(target == this){
-				add(index, value);
+				add(i, value);
 			} else {
 				addF(prev.getL());
 				prev.removeL();
-				prev.shiftr(target, index, value);
-			}
-		}
-		
-		private void shiftl(Node<T> target, int i){
-			if(target != this){
-				while(size()<BSIZE){
-					addL(next.getF());
-					next.removeF();
-				}
-				next.shiftl(target, i+1);
-			}
-			if(i == 0){
-				refresh(this);
-			}
-		}
-		
-		/**
-		 * Updates localSize of every subsequent node after start
-		 * @param start - The node where to start updating
-		 * @requires start != null
-		 * @ensures It will refresh every subsequent node, making localSize the
-		 * real localSize.
-		 */
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		private static void refresh(Node start){
-			Node node = start;
-			while(node != null){
-				if(node.prev != null)
-					node.localSize = node.prev.length()+node.size();
-				node = node.next;
+				prev.shiftr(target, i, value);
 			}
 		}
 	}
@@ -229,16 +280,85 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 	private int size = 0;
 	private Node<T> first;
 	private Node<T> last;
+	//Positional index over the nodes
+	private final NodeIndex<Node<T>> nodes = new NodeIndex<Node<T>>();
+	//Node last returned by lookfor, where the next lookups are likely to land
+	private Node<T> finger;
+	//Position of the first element of finger
+	private int base;
+	//Lookups solved by walking from finger, and the others
+	private long fingerHits = 0;
+	private long fingerMisses = 0;
+	//Number of structural modifications, to make iterators fail fast
+	private int modCount = 0;
+	//What the operations did, null unless METRICS
+	private final BDLListMetrics metrics = METRICS ? new BDLListMetrics() : null;
+	//Fill factor under which removes compact the list, 0 if they never do
+	private double compactBelow = 0;
+	//Elements removed since the fill factor was last checked
+	private int removals = 0;
 	
 	/* ********* FINAL FIELDS ********** */ 
 	private final static int BSIZE = 4;
+	//How many nodes lookfor walks from finger before using the index
+	private final static int REACH = 8;
+	//Whether lists count what their operations do, see BDLListMetrics
+	final static boolean METRICS = Boolean.getBoolean("bdllist.metrics");
+	//Number of elements nodes are balanced to, their blocks hold one more
+	private final int bsize;
+	//Where dropped nodes go and new ones come from, null to allocate them
+	private final BlockPool pool;
+	//How inserts make room in a full node
+	private OverflowPolicy overflow = OverflowPolicy.SHIFT;
+	
+	/* ********* CONSTRUCTORS ********** */
+	
+	/**
+	 * Constructor to an empty list whose blocks hold BSIZE+1 elements.
+	 */
+	public BDLList() {
+		this(BSIZE+1);
+	}
+	
+	/**
+	 * Constructor to an empty list whose blocks hold a given number of
+	 * elements. Larger blocks mean fewer nodes, hence less memory and
+	 * faster lookups, but slower inserts in the middle of the list.
+	 * @param capacity - the capacity of the blocks
+	 * @requires capacity > 1
+	 */
+	public BDLList(int capacity) {
+		this.bsize = capacity - 1;
+		this.pool = null;
+	}
+	
+	/**
+	 * Constructor to an empty list whose nodes are taken from a pool, when
+	 * it has any, and given back to it when dropped. Its blocks hold as 
+	 * many elements as those of the pool.
+	 * @param pool - the pool, which other lists may share
+	 * @requires pool != null
+	 */
+	public BDLList(BlockPool pool) {
+		this.bsize = pool.capacity() - 1;
+		this.pool = pool;
+	}
 	
 	/* ************ METHODS ************ */
 	
+	/**
+	 * What's the capacity of the blocks of this list?
+	 * @return The number of elements each node can hold.
+	 */
+	public int blockCapacity() {
+		return bsize + 1;
+	}
+	
 	/**
 	 * Is this list empty?
 	 * @return true if empty, false otherwise.
 	 */
+	@Override
 	public boolean isEmpty() {
 		return size == 0;
 	}
@@ -247,6 +367,7 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 	 * What's the current size of this list?
 	 * @return The size of the list.
 	 */
+	@Override
 	public int size() {
 		return size;
 	}
@@ -260,7 +381,8 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 	 */
 	public T get(int index) {
 		//look for the node containing index, and get it's indexth element.
-		return lookfor(index).get(index);
+		Node<T> node = lookfor(index);
+		return node.get(index - base);
 	}
 	
 	/**
@@ -273,191 +395,2391 @@ public class BDLList<T> implements Iterable<T>, Cloneable{
 	public void add(int index, T value) {
 		if(isEmpty()){ //empty, just add it to the first position
 			add(value);
+		} else if(index == 0){ //No need to shift the nodes after the first
+			addFirst(value);
 		} else {
 			Node<T> currNode = lookfor(index); //Node containing index
-			if(currNode.isFull()){ //It's already full
-				Node<T> target = lookforEmpty(currNode);
-				if(target == null){ //End of the list
-					Block<T> temp = new Block<T>(BSIZE+1);
-					//Set next to a new node containing the new block
-					last.next = new Node<T>(temp, null, last, last.length());
-					last = last.next;
-					/*Shifts one value (the last one) to the right, 
-					from currNode, until the last node, to make room for value.*/
-					last.shiftr(currNode, index, value);
-				} else if (target.isFull()) { //Didn't find any not full.
-					Block<T> temp = new Block<T>(BSIZE+1);
-					//Create a new node connecting currNode and it's next node.
-					currNode = new Node<T>(temp, currNode.next, currNode, 
-															currNode.length());
-					currNode.next.prev = currNode;
-					currNode.prev.next = currNode;
-					/*
-					 * Pull the last value of the previous node to the new node
-					 * making room for value
-					 */
-					currNode.shiftr(currNode.prev, index, value);
-					/*
-					 * Shift values (by order) to the left, from target, until
-					 * currNode, balancing everything until every node has 
-					 * at least BSIZE elements
-					 */
-					currNode.shiftl(target, 0);
-				} else { //Found a node that isn't full
-					/*Shifts one value (the last one) to the right, 
-					from currNode, until the target node, to make room for value.*/
-					target.shiftr(currNode, index, value);
-				}
-			} else { //It isn't full
-				currNode.add(index, value);
+			insert(currNode, base, index - base, value);
+		}
+	}
+	
+	/**
+	 * Add an element to the ith position of a node of the list.
+	 * @param currNode - the node
+	 * @param nodeBase - the position of the first element of currNode
+	 * @param i - the position inside currNode
+	 * @param value - the value
+	 * @requires currNode belongs to this list && i >= 0 && i < currNode.size()
+	 * && value != null
+	 * @ensures It adds value to the ith position of currNode, the elements
+	 * that followed it there may have moved to the next nodes, or to the
+	 * previous one, as the overflow policy says. currNode, or the previous
+	 * node if it took elements of currNode, becomes the finger.
+	 */
+	private void insert(Node<T> currNode, int nodeBase, int i, T value) {
+		BDLListInsertEvent event = null;
+		if(METRICS){
+			event = new BDLListInsertEvent();
+			event.begin();
+		}
+		int path = BDLListMetrics.PLAIN;
+		int touched = 1;
+		int moves = 0;
+		if(currNode.isFull() && overflow != OverflowPolicy.SHIFT){ //Split or share
+			Node<T> left = currNode;
+			int k = 2;
+			if(overflow == OverflowPolicy.SPLIT){
+				path = BDLListMetrics.SPLIT;
+				linkAfter(currNode);
+			} else if(currNode.next != null && !currNode.next.isFull()){
+				path = BDLListMetrics.SHIFT;
+			} else if(currNode.prev != null && !currNode.prev.isFull()){
+				path = BDLListMetrics.SHIFT;
+				left = currNode.prev;
+			} else if(currNode.next != null){ //Two full nodes into three
+				path = BDLListMetrics.SPLIT;
+				linkAfter(currNode);
+				k = 3;
+			} else if(currNode.prev != null){
+				path = BDLListMetrics.SPLIT;
+				left = currNode.prev;
+				linkAfter(left);
+				k = 3;
+			} else { //A single node
+				path = BDLListMetrics.SPLIT;
+				linkAfter(currNode);
+			}
+			if(left != currNode){
+				nodeBase -= left.size();
+				i += left.size();
+				currNode = left;
+			}
+			moves = spread(currNode, k, i, value);
+			touched = k;
+		} else if(currNode.isFull()){ //It's already full
+			Node<T> target = lookforEmpty(currNode);
+			if(target == null){ //End of the list
+				path = BDLListMetrics.APPEND;
+				//The old last node is about to become an inner node
+				nodes.sync(last);
+				//Set next to a new node
+				last.next = newNode(null, last);
+				nodes.insertAfter(last, last.next);
+				last = last.next;
+				/*Shifts one value (the last one) to the right, 
+				from currNode, until the last node, to make room for value.*/
+				last.shiftr(currNode, i, value);
+				target = last;
+			} else if (target.isFull()) { //Didn't find any not full.
+				path = BDLListMetrics.SPLIT;
+				//Nodes from currNode until target, and the new one
+				int k = 2;
+				for(Node<T> node = currNode; node != target; node = node.next)
+					k++;
+				/*
+				 * Link a new node after currNode and spread the elements
+				 * of the full nodes evenly over them, so that each one
+				 * keeps room for the next inserts. Packing them instead
+				 * would leave target almost empty, out of the reach of
+				 * lookforEmpty from the full nodes before it.
+				 */
+				linkAfter(currNode);
+				moves = spread(currNode, k, i, value);
+			} else { //Found a node that isn't full
+				path = BDLListMetrics.SHIFT;
+				/*Shifts one value (the last one) to the right, 
+				from currNode, until the target node, to make room for value.*/
+				target.shiftr(currNode, i, value);
+			}
+			//Let the index know about the new sizes of the touched nodes
+			touched = 0;
+			for(Node<T> node = currNode; node != target.next; node = node.next){
+				nodes.sync(node);
+				touched++;
 			}
+			if(path != BDLListMetrics.SPLIT)
+				moves = touched - 1;
+		} else { //It isn't full
+			currNode.add(i, value);
+			nodes.sync(currNode);
 		}
 		size++;
+		modCount++;
+		//Elements before currNode didn't move
+		finger = currNode;
+		base = nodeBase;
+		if(METRICS){
+			metrics.insert(path, touched, moves);
+			event.end();
+			if(event.shouldCommit()){
+				event.index = nodeBase + i;
+				event.path = BDLListMetrics.PATHS[path];
+				event.nodesTouched = touched;
+				event.moves = moves;
+				event.commit();
+			}
+		}
 	}
 	
 	/**
-	 * Set the indexth position in the list to a given value.
-	 * @param index - the index
+	 * Spreads the elements of some consecutive nodes and a value evenly over
+	 * them, moving elements only between neighbours, and adds the value to
+	 * its position among them.
+	 * @param left - the first node
+	 * @param k - the number of nodes
+	 * @param i - the position of value, from the first element of left
 	 * @param value - the value
-	 * @requires index >= 0 && index < size() && value != null
-	 * @ensures It sets the indexth position to value.
+	 * @requires the k nodes from left belong to the list, hold less than
+	 * k * (bsize + 1) elements, and no node but the first gives elements to
+	 * its next one && 0 <= i && i <= the number of elements they hold
+	 * @ensures The index knows about the new sizes of the nodes.
+	 * @return The number of elements moved from a node to another.
 	 */
-	public void set(int index, T value) {
-		//look for the node containing index, and set it's indexth element to
-		//value
-		lookfor(index).set(index, value);
+	private int spread(Node<T> left, int k, int i, T value) {
+		int count = 1;
+		Node<T> node = left;
+		for(int j = 0; j < k; j++, node = node.next)
+			count += node.size();
+		int moves = 0;
+		int start = 0; //Position of the first element of node, once spread
+		Node<T> target = null;
+		int at = 0;
+		node = left;
+		for(int j = 0; j < k; j++, node = node.next){
+			int share = count / k + (j < count % k ? 1 : 0);
+			int end = start + share;
+			if(target == null && i < end){ //value goes to node
+				target = node;
+				at = i - start;
+				share--;
+			}
+			if(j < k - 1){
+				while(node.size() > share){
+					node.next.addF(node.getL());
+					node.removeL();
+					moves++;
+				}
+				while(node.size() < share){
+					node.addL(node.next.getF());
+					node.next.removeF();
+					moves++;
+				}
+			}
+			start = end;
+		}
+		target.add(at, value);
+		node = left;
+		for(int j = 0; j < k; j++, node = node.next)
+			nodes.sync(node);
+		return moves;
 	}
 	
 	/**
-	 * Add value to the end of the list.
+	 * Links a new empty node right after a node of the list.
+	 * @param node - the node
+	 * @requires node belongs to this list
+	 * @return The new node.
+	 */
+	private Node<T> linkAfter(Node<T> node) {
+		//node may be about to become an inner node
+		nodes.sync(node);
+		Node<T> result = newNode(node.next, node);
+		if(node.next == null)
+			last = result;
+		else
+			node.next.prev = result;
+		node.next = result;
+		nodes.insertAfter(node, result);
+		return result;
+	}
+	
+	/**
+	 * Remove the element at the ith position of a node of the list.
+	 * A node left empty is dropped from the list. An inner node left with
+	 * less than minFill() elements is merged with a neighbour, if they fit 
+	 * in a single node, or borrows one element from it otherwise.
+	 * @param node - the node
+	 * @param nodeBase - the position of the first element of node
+	 * @param i - the position inside node
+	 * @requires node belongs to this list && i >= 0 && i < node.size()
+	 * @ensures It removes the element at the ith position of node, and
+	 * the finger is moved to a node next to that position.
+	 * @return true if the other elements of node kept their positions inside
+	 * node, false otherwise.
+	 */
+	private boolean remove(Node<T> node, int nodeBase, int i) {
+		node.remove(i);
+		size--;
+		modCount++;
+		finger = node;
+		base = nodeBase;
+		if(node.size() == 0){
+			Node<T> next = node.next;
+			unlink(node);
+			finger = next;
+			return false;
+		}
+		if(node == first || node == last)
+			return true;
+		boolean inPlace = true;
+		if(node.size() < minFill()){ //Underflow
+			Node<T> prev = node.prev;
+			Node<T> next = node.next;
+			if(METRICS){
+				if(prev.size() + node.size() <= bsize 
+						|| next.size() + node.size() <= bsize)
+					metrics.merges++;
+				else
+					metrics.borrows++;
+			}
+			if(prev.size() + node.size() <= bsize){ //Merge into prev
+				base = nodeBase - prev.size();
+				finger = prev;
+				while(node.size() > 0){
+					prev.addL(node.getF());
+					node.removeF();
+				}
+				unlink(node);
+				nodes.sync(prev);
+				return false;
+			} else if(next.size() + node.size() <= bsize){ //Merge into next
+				finger = next;
+				while(node.size() > 0){
+					next.addF(node.getL());
+					node.removeL();
+				}
+				unlink(node);
+				nodes.sync(next);
+				return false;
+			} else if(prev.size() > next.size()){ //Borrow from prev
+				base = nodeBase - 1;
+				node.addF(prev.getL());
+				prev.removeL();
+				nodes.sync(prev);
+				inPlace = false;
+			} else { //Borrow from next
+				node.addL(next.getF());
+				next.removeF();
+				nodes.sync(next);
+			}
+		}
+		nodes.sync(node);
+		return inPlace;
+	}
+	
+	/**
+	 * Remove the elements from the fromth position, inclusive, to the toth
+	 * position, exclusive. 
+	 * Only the nodes holding the ends of the range are trimmed. The nodes 
+	 * in between are dropped at once, so it takes O(bsize + log n) time,
+	 * whatever the number of elements removed, plus the time to clear the
+	 * nodes the pool of the list takes back, if it has one.
+	 * @param from - the position of the first element to remove
+	 * @param to - the position after the last element to remove
+	 * @requires 0 <= from && from <= to && to <= size()
+	 * @ensures It removes the elements in the range, the elements after it
+	 * move to-from positions to the left.
+	 */
+	public void removeRange(int from, int to) {
+		if(from == to)
+			return;
+		if(from == 0 && to == size){
+			clear();
+			return;
+		}
+		Node<T> head = lookfor(from);
+		int a = from - base;
+		Node<T> tail = lookfor(to - 1);
+		int b = to - base;
+		if(head == tail && (a > 0 || b < tail.size())){ //Inside a node
+			head.removeRange(a, b);
+			nodes.sync(head);
+			size -= to - from;
+			modCount++;
+			finger = null;
+			balance(head);
+			removed(to - from);
+			return;
+		}
+		//The nodes kept at the ends of the range, if any, and those between
+		Node<T> keptHead = a > 0 ? head : null;
+		Node<T> keptTail = b < tail.size() ? tail : null;
+		Node<T> dropHead = a > 0 ? head.next : head;
+		Node<T> dropTail = b < tail.size() ? tail.prev : tail;
+		if(dropHead != dropTail.next){
+			nodes.removeChain(dropHead, dropTail);
+			if(dropHead.prev == null)
+				first = dropTail.next;
+			else
+				dropHead.prev.next = dropTail.next;
+			if(dropTail.next == null)
+				last = dropHead.prev;
+			else
+				dropTail.next.prev = dropHead.prev;
+			dropHead.prev = null;
+			dropTail.next = null;
+			releaseChain(dropHead);
+		}
+		if(keptHead != null){
+			keptHead.removeRange(a, keptHead.size());
+			nodes.sync(keptHead);
+		}
+		if(keptTail != null){
+			keptTail.removeRange(0, b);
+			nodes.sync(keptTail);
+		}
+		size -= to - from;
+		modCount++;
+		finger = null;
+		if(keptHead != null)
+			balance(keptHead);
+		if(keptTail != null)
+			balance(keptTail);
+		removed(to - from);
+	}
+	
+	/**
+	 * Replace the elements from the fromth position, inclusive, to the toth
+	 * position, exclusive, with the elements of a collection, in the order 
+	 * they are returned by its iterator.
+	 * It takes O(bsize + log n) time plus the time to add the new elements.
+	 * @param from - the position of the first element to replace
+	 * @param to - the position after the last element to replace
+	 * @param c - the collection
+	 * @requires 0 <= from && from <= to && to <= size() && c != null &&
+	 * c holds no null elements
+	 * @ensures The elements of c take the place of the range.
+	 */
+	public void replaceRange(int from, int to, Collection<? extends T> c) {
+		removeRange(from, to);
+		addAll(from, c);
+	}
+	
+	/**
+	 * A view of the elements from the fromth position, inclusive, to the
+	 * toth position, exclusive. Changes made through the view change this
+	 * list; structural changes made to this list otherwise make the view
+	 * fail fast. Clearing the view or a range of it uses removeRange.
+	 * @param from - the position of the first element of the view
+	 * @param to - the position after the last element of the view
+	 * @throws IndexOutOfBoundsException if the range isn't in the list
+	 * @return A list backed by the range.
+	 */
+	public List<T> subList(int from, int to) {
+		if(from < 0 || to > size || from > to)
+			throw new IndexOutOfBoundsException("from " + from + " to " + to);
+		return new SubList(from, to);
+	}
+	
+	/**
+	 * Where would a value go in the list, sorted by a comparator?
+	 * It goes down the index comparing the first element of each node with
+	 * value, and then binary-searches the block of the node found, so it 
+	 * takes O(log n) time. That node becomes the finger, so adding value 
+	 * at the position found doesn't look for it again.
 	 * @param value - the value
-	 * @requires value != null
-	 * @ensures It will add value to the end of the list.
+	 * @param c - the comparator
+	 * @param after - whether value goes after the elements equal to it
+	 * @requires the list is sorted by c && value != null
+	 * @return The first position whose element goes after value, or that
+	 * is equal to it unless after, size() if there is none.
 	 */
-	public void add(T value) {
-		if(isEmpty()) { //empty
-			//New block
-			Block<T> temp = new Block<T>(BSIZE+1);
-			//New node
-			first = new Node<T>(temp, null, null);
-			last = first;
-		} else if(last.isFull()) { //Last node is full
-			//New block
-			Block<T> temp = new Block<T>(BSIZE+1);
-			//Set next to a new node containing the new block
-			last.next = new Node<T>(temp, null, last, last.length());
-			//Update last
-			last = last.next;
+	int bound(T value, Comparator<? super T> c, boolean after) {
+		if(isEmpty())
+			return 0;
+		Node<T> node = nodes.last(x -> {
+			int result = c.compare(x.getF(), value);
+			return result < 0 || after && result == 0;
+		});
+		if(node == null)
+			return 0;
+		//The index may not know about the latest elements of the first node
+		int nodeBase = node == first ? 0 : nodes.base() + nodes.lag(first);
+		//The first element of node goes before value
+		int low = 1;
+		int high = node.size();
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			int result = c.compare(node.get(mid), value);
+			if(result < 0 || after && result == 0)
+				low = mid + 1;
+			else
+				high = mid;
 		}
-		//Add the value to the end of the list
-		last.addL(value);
-		//Update size
-		size++;
+		finger = node;
+		base = nodeBase;
+		return nodeBase + low;
 	}
 	
 	/**
-	 * What's the node holding the indexth position?
-	 * @param index - the position
-	 * @requires index >= 0 && index < size()
-	 * @ensures It returns the node holding the indexth position.
-	 * @return The node holding the indexth position.
+	 * Sorts the list in the order induced by a comparator. The sort is
+	 * stable.
+	 * Every block is sorted in place, and then the blocks are merged, all
+	 * at once, into full nodes. The nodes emptied by the merge hold the 
+	 * next elements merged, so there is never a copy of the whole list,
+	 * and the ones left over go back to the pool of the list.
+	 * @param c - the comparator
+	 * @requires c != null
+	 * @ensures The elements of the list are sorted by c.
 	 */
-	private Node<T> lookfor(int index){
-		Node<T> result = first;
-		//While the size up to the node doesn't contain index.
-		while(result.length() <= index){
-			result = result.next;
+	public void sort(Comparator<? super T> c) {
+		if(size < 2){
+			modCount++;
+			return;
 		}
-		
-		return result;
+		Node<T>[] runs = runs();
+		for(Node<T> run: runs)
+			run.sort(c);
+		Merge<T> merge = new Merge<T>(this, runs, c);
+		merge.recycle = new ArrayDeque<Node<T>>();
+		Node<T>[] chains = chains(1);
+		chains[0] = merge.run(bsize+1);
+		replaceChain(chains);
+		while(!merge.recycle.isEmpty())
+			release(merge.recycle.pop());
+		if(METRICS)
+			metrics.nodesAllocated += merge.allocated;
 	}
 	
 	/**
-	 * What's the first not full node, at a distance of BSIZE from curr?
-	 * @param curr - the node to start the search from
-	 * @requires curr != null
-	 * @ensures It returns as the tag return specifies.
-	 * @return null if didn't find any not full nodes at a distance of BSIZE,
-	 * Or the last node that it searched for. If that node is full, didn't find
-	 * any, if it's not, it found.
+	 * Sorts the list in the order induced by a comparator, using every 
+	 * core. The sort is stable.
+	 * The blocks are sorted by fork/join tasks. The sorted blocks are then 
+	 * split by splitters sampled from them into as many ranges as tasks, 
+	 * and each task merges its range of every block into its own nodes,
+	 * which are linked at the end. Unlike sort, ranges of a block are 
+	 * merged at the same time, so the merge needs new nodes, taken from the
+	 * pool of the list if it has one, but still no copy of the whole list.
+	 * The old nodes go back to the pool afterwards.
+	 * @param c - the comparator
+	 * @requires c != null
+	 * @ensures The elements of the list are sorted by c.
 	 */
-	private Node<T> lookforEmpty(Node<T> curr) {
-		Node<T> result = curr;
-		boolean found = false;
-		for(int i = 1; i <= BSIZE && result != null && !found; i++){
-			if(result.isFull()) //It's full, check next node
-				result = result.next;
-			else //Found the node
-				found = true;
+	public void parallelSort(Comparator<? super T> c) {
+		if(size < 2){
+			modCount++;
+			return;
 		}
-		return result;
+		Node<T>[] runs = runs();
+		int tasks = Math.min(runs.length, 4 * ForkJoinPool.getCommonPoolParallelism());
+		if(ForkJoinPool.getCommonPoolParallelism() < 2 || tasks < 2){
+			sort(c);
+			return;
+		}
+		Arrays.stream(runs).parallel().forEach(run -> run.sort(c));
+		T[] splitters = splitters(runs, c, tasks);
+		//bounds[j][i] is where the jth range starts in the ith block
+		int[][] bounds = new int[tasks + 1][runs.length];
+		for(int i = 0; i < runs.length; i++){
+			for(int j = 1; j < tasks; j++)
+				bounds[j][i] = lowerBound(runs[i], splitters[j - 1], c);
+			bounds[tasks][i] = runs[i].size();
+		}
+		Node<T>[] chains = chains(tasks);
+		int[] allocated = new int[tasks];
+		IntStream.range(0, tasks).parallel().forEach(j -> {
+			Merge<T> merge = new Merge<T>(this, runs, c);
+			merge.pos = bounds[j].clone();
+			merge.end = bounds[j + 1];
+			chains[j] = merge.run(bsize+1);
+			allocated[j] = merge.allocated;
+		});
+		replaceChain(chains);
+		//The old nodes are still linked to each other
+		releaseChain(runs[0]);
+		if(METRICS)
+			metrics.nodesAllocated += IntStream.of(allocated).sum();
 	}
 	
 	/**
-	 * Contextual representation of BDLList
+	 * Performs an action on every element of the list, in order, a block at
+	 * a time.
+	 * @param action - the action
+	 * @throws ConcurrentModificationException if action changes the
+	 * structure of the list
 	 */
 	@Override
-	public String toString() {
-		StringBuilder result = new StringBuilder("[");
-		for(T e: this){
-			result.append(e+", ");
+	public void forEach(Consumer<? super T> action) {
+		int expected = modCount;
+		for(Node<T> node = first; node != null && modCount == expected; node = node.next)
+			node.forEach(action);
+		if(modCount != expected)
+			throw new ConcurrentModificationException();
+	}
+	
+	/**
+	 * Performs an action on every element of the list, with the nodes 
+	 * spread over the threads of the common fork/join pool, in no given 
+	 * order.
+	 * @param action - the action, which may run in several threads at once
+	 * @requires action doesn't change the list
+	 */
+	public void parallelForEach(Consumer<? super T> action) {
+		Node<T>[] runs = runs();
+		if(ForkJoinPool.getCommonPoolParallelism() < 2 || runs.length < 2){
+			forEach(action);
+			return;
 		}
-		if(!isEmpty())
-			result.delete(result.length()-2, result.length());
-		result.append("]");
-		return result.toString();
+		Arrays.stream(runs).parallel().forEach(node -> node.forEach(action));
 	}
 	
 	/**
-	 * Contextual representation of BDLList for debbuging
-	 * @return Contextual representation of BDLList for debbuging
+	 * Replaces every element of the list with the result of an operator on
+	 * it, a block at a time, in a single pass and without lookups.
+	 * @param operator - the operator
+	 * @requires operator never returns null
+	 * @throws ConcurrentModificationException if operator changes the
+	 * structure of the list
 	 */
-	public String toStringforDebbugging() {
-		StringBuilder result = new StringBuilder();
-		Node<T> curr = first;
-		while(curr!=null){
-			result.append("<-"+curr.elem.toString()+"->");
+	public void replaceAll(UnaryOperator<T> operator) {
+		int expected = modCount;
+		for(Node<T> node = first; node != null && modCount == expected; node = node.next)
+			node.replaceAll(operator);
+		if(modCount != expected)
+			throw new ConcurrentModificationException();
+	}
+	
+	/**
+	 * Replaces every element of the list with the result of an operator on
+	 * it, with the nodes spread over the threads of the common fork/join 
+	 * pool.
+	 * @param operator - the operator, which may run in several threads at 
+	 * once
+	 * @requires operator never returns null and doesn't change the list
+	 */
+	public void parallelReplaceAll(UnaryOperator<T> operator) {
+		Node<T>[] runs = runs();
+		if(ForkJoinPool.getCommonPoolParallelism() < 2 || runs.length < 2){
+			replaceAll(operator);
+			return;
 		}
-		if(result.length() == 0)
-			result.append("Nothing");
-		return result.toString();
+		Arrays.stream(runs).parallel().forEach(node -> node.replaceAll(operator));
 	}
 	
 	/**
-	 * A custom iterator class that traverses the elements of this list.
-	 * This iterator works by traversing the nodes as a proper linked list.
+	 * Removes every element of the list that passes a test.
+	 * Every element is tested before any is removed, so the list doesn't 
+	 * change if the test throws an exception. The nodes are then swept a 
+	 * block at a time and compacted, in time linear in the size of the 
+	 * list.
+	 * @param filter - the test
+	 * @throws ConcurrentModificationException if filter changes the
+	 * structure of the list
+	 * @return true if any element was removed, false otherwise.
 	 */
-	private final class BDLListIterator implements Iterator<T> {
-		private int currIndex = 0;
-		
-		/**
-		 * Does it have another value?
-		 */
-		@Override
-		public boolean hasNext() {
-			return currIndex<size() && !isEmpty();
+	@Override
+	public boolean removeIf(Predicate<? super T> filter) {
+		boolean[] marks = new boolean[size];
+		int expected = modCount;
+		int nodeBase = 0;
+		for(Node<T> node = first; node != null && modCount == expected; node = node.next){
+			node.mark(filter, marks, nodeBase);
+			nodeBase += node.size();
 		}
-		
-		/**
-		 * Next value.
-		 */
-		@Override
-		public T next() {
-			if (currIndex>size()) 
-				throw new NoSuchElementException();
-			T result = get(currIndex);
-			currIndex++;
-			return result;
+		if(modCount != expected)
+			throw new ConcurrentModificationException();
+		int removed = 0;
+		nodeBase = 0;
+		for(Node<T> node = first; node != null; node = node.next){
+			int count = node.size();
+			removed += node.sweep(marks, nodeBase);
+			nodeBase += count;
 		}
-		
-		
+		return swept(removed);
 	}
 	
 	/**
-	 * An iterator for the elements in the BDLList.
+	 * Removes every element of the list that passes a test, testing and 
+	 * sweeping the nodes spread over the threads of the common fork/join 
+	 * pool.
+	 * @param filter - the test, which may run in several threads at once
+	 * @requires filter doesn't change the list
+	 * @return true if any element was removed, false otherwise.
 	 */
-	@Override
-	public Iterator<T> iterator() {
-		return new BDLListIterator();
+	public boolean parallelRemoveIf(Predicate<? super T> filter) {
+		Node<T>[] runs = runs();
+		if(ForkJoinPool.getCommonPoolParallelism() < 2 || runs.length < 2)
+			return removeIf(filter);
+		int[] bases = new int[runs.length];
+		for(int k = 1; k < runs.length; k++)
+			bases[k] = bases[k - 1] + runs[k - 1].size();
+		boolean[] marks = new boolean[size];
+		IntStream.range(0, runs.length).parallel()
+				.forEach(k -> runs[k].mark(filter, marks, bases[k]));
+		int removed = IntStream.range(0, runs.length).parallel()
+				.map(k -> runs[k].sweep(marks, bases[k])).sum();
+		return swept(removed);
+	}
+	
+	/**
+	 * Brings the list up to date after the nodes were swept, dropping the
+	 * nodes left empty and compacting the others.
+	 * @param removed - the number of elements removed by the sweep
+	 * @return true if any element was removed, false otherwise.
+	 */
+	private boolean swept(int removed) {
+		if(removed == 0)
+			return false;
+		size -= removed;
+		if(size == 0)
+			clear();
+		else
+			compact();
+		return true;
+	}
+	
+	/**
+	 * A new array of chains of nodes.
+	 * @param length - the length of the array
+	 * @return An array of length nulls.
+	 */
+	@SuppressWarnings("unchecked")
+	private Node<T>[] chains(int length) {
+		return (Node<T>[]) new Node<?>[length];
+	}
+	
+	/**
+	 * The nodes of the list, in order, in a new array.
+	 * @return An array holding every node of the list.
+	 */
+	private Node<T>[] runs() {
+		int count = 0;
+		for(Node<T> node = first; node != null; node = node.next)
+			count++;
+		Node<T>[] result = chains(count);
+		int k = 0;
+		for(Node<T> node = first; node != null; node = node.next)
+			result[k++] = node;
+		return result;
+	}
+	
+	/**
+	 * Values splitting sorted nodes in ranges of about the same size, 
+	 * chosen from a sample of every node.
+	 * @param runs - the sorted nodes
+	 * @param c - the comparator they are sorted by
+	 * @param ranges - the number of ranges
+	 * @return ranges-1 values, sorted by c.
+	 */
+	@SuppressWarnings("unchecked")
+	private T[] splitters(Node<T>[] runs, Comparator<? super T> c, int ranges) {
+		//A few elements of each node, evenly spaced
+		final int perRun = 8;
+		Object[] sample = new Object[runs.length * perRun];
+		int k = 0;
+		for(Node<T> run: runs)
+			for(int j = 0; j < perRun; j++)
+				sample[k++] = run.get(j * run.size() / perRun);
+		Arrays.sort((T[]) sample, c);
+		Object[] result = new Object[ranges - 1];
+		for(int j = 1; j < ranges; j++)
+			result[j - 1] = sample[j * sample.length / ranges];
+		return (T[]) result;
+	}
+	
+	/**
+	 * What's the first position of a sorted node holding an element not 
+	 * less than a value?
+	 * @param node - the node
+	 * @param value - the value
+	 * @param c - the comparator node is sorted by
+	 * @return The first position of node whose element isn't less than
+	 * value, node.size() if there is none.
+	 */
+	private static <T> int lowerBound(Node<T> node, T value, Comparator<? super T> c) {
+		int low = 0;
+		int high = node.size();
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(c.compare(node.get(mid), value) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+	
+	/**
+	 * Replaces every node of the list with chains of new nodes holding the
+	 * same elements, linked one after the other.
+	 * @param chains - the first nodes of the chains, some of them null
+	 * @requires the chains hold size elements
+	 * @ensures The list holds the nodes of the chains, and the inner nodes 
+	 * that ended a chain hold at least minFill() elements.
+	 */
+	private void replaceChain(Node<T>[] chains) {
+		//The nodes that end chains, which may be almost empty
+		ArrayDeque<Node<T>> ends = new ArrayDeque<Node<T>>();
+		Node<T> head = null;
+		Node<T> tail = null;
+		for(Node<T> chain: chains){
+			if(chain == null)
+				continue;
+			if(tail == null){
+				head = chain;
+			} else {
+				tail.next = chain;
+				chain.prev = tail;
+				ends.push(tail);
+			}
+			tail = chain;
+			while(tail.next != null)
+				tail = tail.next;
+		}
+		first = head;
+		last = head;
+		while(last.next != null)
+			last = last.next;
+		finger = null;
+		nodes.clear();
+		nodes.insertChain(first, last);
+		modCount++;
+		while(!ends.isEmpty())
+			balance(ends.pop());
+	}
+	
+	/**
+	 * Gives the elements of an inner node left with less than minFill()
+	 * elements to a neighbour, if they fit in a single node, or takes as
+	 * many elements as it lacks from the larger neighbour otherwise.
+	 * @param node - the node
+	 * @requires node belongs to this list
+	 */
+	private void balance(Node<T> node) {
+		if(node == first || node == last || node.size() >= minFill())
+			return;
+		Node<T> prev = node.prev;
+		Node<T> next = node.next;
+		if(prev.size() + node.size() <= bsize){ //Merge into prev
+			while(node.size() > 0){
+				prev.addL(node.getF());
+				node.removeF();
+			}
+			unlink(node);
+			nodes.sync(prev);
+		} else if(next.size() + node.size() <= bsize){ //Merge into next
+			while(node.size() > 0){
+				next.addF(node.getL());
+				node.removeL();
+			}
+			unlink(node);
+			nodes.sync(next);
+		} else if(prev.size() > next.size()){ //Borrow from prev
+			while(node.size() < minFill()){
+				node.addF(prev.getL());
+				prev.removeL();
+			}
+			nodes.sync(prev);
+			nodes.sync(node);
+		} else { //Borrow from next
+			while(node.size() < minFill()){
+				node.addL(next.getF());
+				next.removeF();
+			}
+			nodes.sync(next);
+			nodes.sync(node);
+		}
+	}
+	
+	/**
+	 * What's the least number of elements of an inner node?
+	 * @return The least number of elements of an inner node.
+	 */
+	private int minFill() {
+		return Math.max(1, bsize / 2);
+	}
+	
+	/**
+	 * Drops a node from the list.
+	 * @param node - the node
+	 * @requires node belongs to this list
+	 * @ensures node no longer belongs to the list.
+	 */
+	private void unlink(Node<T> node) {
+		nodes.remove(node);
+		if(finger == node)
+			finger = null;
+		if(node.prev == null)
+			first = node.next;
+		else
+			node.prev.next = node.next;
+		if(node.next == null)
+			last = node.prev;
+		else
+			node.next.prev = node.prev;
+		node.next = null;
+		node.prev = null;
+		release(node);
+	}
+	
+	/**
+	 * A new empty node, taken from the pool of the list if it has one that
+	 * isn't empty.
+	 * @param next - the next node
+	 * @param prev - the previous node
+	 * @return A node linked to next and prev, which aren't linked to it.
+	 */
+	private Node<T> newNode(Node<T> next, Node<T> prev) {
+		Node<T> result = pooledNode();
+		if(result == null){
+			result = new Node<T>(new Block<T>(bsize+1), next, prev);
+			if(METRICS)
+				metrics.nodesAllocated++;
+		} else {
+			result.next = next;
+			result.prev = prev;
+		}
+		return result;
+	}
+	
+	/**
+	 * An empty node from the pool of the list, if it has one that isn't
+	 * empty. Pools are synchronized, so merges running on several threads
+	 * may call it.
+	 * @return An unlinked empty node, null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	private Node<T> pooledNode() {
+		return pool == null ? null : (Node<T>) pool.take();
+	}
+	
+	/**
+	 * Gives a node dropped from the list back to the pool of the list, if
+	 * it has one and the block of the node isn't shared with a clone.
+	 * @param node - the node
+	 * @requires node doesn't belong to the list nor to its index
+	 */
+	private void release(Node<T> node) {
+		if(pool == null || node.shared)
+			return;
+		node.elem.clear();
+		node.next = null;
+		node.prev = null;
+		pool.give(node);
+	}
+	
+	/**
+	 * Gives the nodes of a chain dropped from the list back to the pool of
+	 * the list, as many as it has room for, so it takes time linear in the
+	 * number of nodes the pool keeps, not in the length of the chain.
+	 * @param head - the first node of the chain
+	 * @requires the nodes from head on don't belong to the list nor to its
+	 * index
+	 */
+	private void releaseChain(Node<T> head) {
+		if(pool == null)
+			return;
+		int room = pool.room();
+		for(Node<T> node = head; node != null && room > 0; room--){
+			Node<T> next = node.next;
+			release(node);
+			node = next;
+		}
+	}
+	
+	/**
+	 * Set the indexth position in the list to a given value.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index < size() && value != null
+	 * @ensures It sets the indexth position to value.
+	 */
+	public void set(int index, T value) {
+		//look for the node containing index, and set it's indexth element to
+		//value
+		Node<T> node = lookfor(index);
+		node.set(index - base, value);
+	}
+	
+	/**
+	 * Add value to the end of the list.
+	 * @param value - the value
+	 * @requires value != null
+	 * @ensures It will add value to the end of the list.
+	 * @return true, as the list always changes.
+	 */
+	@Override
+	public boolean add(T value) {
+		if(isEmpty()) { //empty
+			//New node
+			first = newNode(null, null);
+			last = first;
+			finger = null;
+			nodes.clear();
+			nodes.insertAfter(null, first);
+		} else if(last.isFull()) { //Last node is full
+			//The old last node is about to become an inner node
+			nodes.sync(last);
+			//Set next to a new node
+			last.next = newNode(null, last);
+			nodes.insertAfter(last, last.next);
+			//Update last
+			last = last.next;
+		}
+		//Add the value to the end of the list, the index catches up on it
+		//only when last stops being the last node
+		last.addL(value);
+		//Update size
+		size++;
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Add value to the beginning of the list, in O(1) time but when the 
+	 * first node is full, where a new first node is linked before it.
+	 * @param value - the value
+	 * @requires value != null
+	 * @ensures It adds value to the first position, the others move one 
+	 * position to the right.
+	 */
+	@Override
+	public void addFirst(T value) {
+		if(isEmpty()){
+			add(value);
+			return;
+		}
+		if(first.isFull()){
+			//The old first node is about to become an inner node
+			nodes.sync(first);
+			first.prev = newNode(first, null);
+			nodes.insertBefore(first, first.prev);
+			first = first.prev;
+		}
+		//The index catches up on it only when first stops being the first 
+		//node
+		first.addF(value);
+		size++;
+		modCount++;
+		//Every position after the first node moved
+		if(finger != null && finger != first)
+			base++;
+	}
+	
+	/**
+	 * Add value to the end of the list.
+	 * @param value - the value
+	 * @requires value != null
+	 * @ensures It adds value to the last position.
+	 */
+	@Override
+	public void addLast(T value) {
+		add(value);
+	}
+	
+	/**
+	 * Add value to the beginning of the list.
+	 * @param value - the value
+	 * @requires value != null
+	 * @return true, as the list has no capacity bound.
+	 */
+	@Override
+	public boolean offerFirst(T value) {
+		addFirst(value);
+		return true;
+	}
+	
+	/**
+	 * Add value to the end of the list.
+	 * @param value - the value
+	 * @requires value != null
+	 * @return true, as the list has no capacity bound.
+	 */
+	@Override
+	public boolean offerLast(T value) {
+		return add(value);
+	}
+	
+	/**
+	 * Add value to the end of the list, as the tail of a queue.
+	 * @param value - the value
+	 * @requires value != null
+	 * @return true, as the list has no capacity bound.
+	 */
+	@Override
+	public boolean offer(T value) {
+		return add(value);
+	}
+	
+	/**
+	 * Add value to the beginning of the list, as the top of a stack.
+	 * @param value - the value
+	 * @requires value != null
+	 */
+	@Override
+	public void push(T value) {
+		addFirst(value);
+	}
+	
+	/**
+	 * Add every element of a collection to the end of the list, in the
+	 * order they are returned by its iterator.
+	 * The last node is filled up and the other elements are packed in new
+	 * nodes, which are linked at once.
+	 * @param c - the collection
+	 * @requires c != null && c holds no null elements
+	 * @ensures It adds every element of c to the end of the list.
+	 * @return true if the list changed, false otherwise.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean addAll(Collection<? extends T> c) {
+		Object[] values = c.toArray();
+		if(values.length == 0)
+			return false;
+		int k = 0;
+		if(!isEmpty()){
+			while(k < values.length && !last.isFull())
+				last.addL((T) values[k++]);
+		}
+		if(k < values.length){
+			int capacity = bsize + 1;
+			int count = (values.length - k + capacity - 1) / capacity;
+			Node<T> head = pack(values, k, values.length, count);
+			if(isEmpty()){
+				first = head;
+				last = head;
+				finger = null;
+				nodes.clear();
+				while(last.next != null)
+					last = last.next;
+				nodes.insertChain(first, last);
+			} else {
+				splice(last, head);
+			}
+		}
+		size += values.length;
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Add every element of a collection to the indexth position in the 
+	 * list, in the order they are returned by its iterator.
+	 * The node holding index is split once, and its elements together with
+	 * the new ones are spread evenly over it and new nodes, which are linked 
+	 * at once after it.
+	 * @param index - the index
+	 * @param c - the collection
+	 * @requires index >= 0 && index <= size() && c != null && c holds no 
+	 * null elements
+	 * @ensures It adds every element of c starting at the indexth position.
+	 * @return true if the list changed, false otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int index, Collection<? extends T> c) {
+		if(index == size)
+			return addAll(c);
+		Object[] values = c.toArray();
+		if(values.length == 0)
+			return false;
+		Node<T> node = lookfor(index);
+		int nodeBase = base;
+		int i = index - base;
+		//The elements of node with the new ones in the middle
+		Object[] all = new Object[node.size() + values.length];
+		for(int j = 0; j < node.size(); j++)
+			all[j < i ? j : j + values.length] = node.get(j);
+		System.arraycopy(values, 0, all, i, values.length);
+		while(node.size() > 0)
+			node.removeL();
+		int capacity = bsize + 1;
+		int count = (all.length + capacity - 1) / capacity;
+		int share = all.length / count + (all.length % count > 0 ? 1 : 0);
+		for(int j = 0; j < share; j++)
+			node.addL((T) all[j]);
+		if(count > 1)
+			splice(node, pack(all, share, all.length, count - 1));
+		if(node != first && node != last)
+			nodes.sync(node);
+		size += values.length;
+		modCount++;
+		finger = node;
+		base = nodeBase;
+		return true;
+	}
+	
+	/**
+	 * Creates a chain of nodes holding some values, spread evenly.
+	 * @param values - the values
+	 * @param from - the position of the first value to hold
+	 * @param to - the position after the last value to hold
+	 * @param count - the number of nodes
+	 * @requires 0 < count && count * capacity of the blocks >= to - from
+	 * && to - from >= count
+	 * @return The first node of the chain.
+	 */
+	@SuppressWarnings("unchecked")
+	private Node<T> pack(Object[] values, int from, int to, int count) {
+		Node<T> head = null;
+		Node<T> tail = null;
+		int k = from;
+		for(int j = 0; j < count; j++){
+			int share = (to - from) / count + (j < (to - from) % count ? 1 : 0);
+			Node<T> node = newNode(null, tail);
+			for(int end = k + share; k < end; k++)
+				node.addL((T) values[k]);
+			if(tail == null)
+				head = node;
+			else
+				tail.next = node;
+			tail = node;
+		}
+		return head;
+	}
+	
+	/**
+	 * Links a chain of new nodes right after a node of the list.
+	 * @param anchor - the node of the list
+	 * @param head - the first node of the chain
+	 * @requires anchor belongs to this list && head != null && 
+	 * head.prev == null
+	 * @ensures The nodes of the chain follow anchor in the list.
+	 */
+	private void splice(Node<T> anchor, Node<T> head) {
+		Node<T> tail = head;
+		while(tail.next != null)
+			tail = tail.next;
+		//anchor may be about to become an inner node
+		nodes.sync(anchor);
+		tail.next = anchor.next;
+		if(anchor.next == null)
+			last = tail;
+		else
+			anchor.next.prev = tail;
+		anchor.next = head;
+		head.prev = anchor;
+		nodes.insertChain(head, tail);
+	}
+	
+	/**
+	 * Remove the element at the indexth position in the list.
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @ensures It removes the element at the indexth position, the elements
+	 * after it move one position to the left.
+	 * @return The removed element.
+	 */
+	public T remove(int index) {
+		Node<T> node = lookfor(index);
+		int i = index - base;
+		T result = node.get(i);
+		remove(node, base, i);
+		removed(1);
+		return result;
+	}
+	
+	/**
+	 * Remove the first element of the list.
+	 * @throws NoSuchElementException if the list is empty
+	 * @ensures It removes the first element, the others move one 
+	 * position to the left.
+	 * @return The removed element.
+	 */
+	@Override
+	public T removeFirst() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		T result = first.getF();
+		first.removeF();
+		size--;
+		modCount++;
+		//Every position after the first node moved
+		if(finger != first)
+			base--;
+		if(first.size() == 0)
+			unlink(first);
+		return result;
+	}
+	
+	/**
+	 * Remove the last element of the list.
+	 * @throws NoSuchElementException if the list is empty
+	 * @ensures It removes the last element.
+	 * @return The removed element.
+	 */
+	@Override
+	public T removeLast() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		T result = last.getL();
+		last.removeL();
+		size--;
+		modCount++;
+		if(last.size() == 0)
+			unlink(last);
+		return result;
+	}
+	
+	/**
+	 * Remove the first element of the list, if any.
+	 * @return The removed element, null if the list is empty.
+	 */
+	@Override
+	public T pollFirst() {
+		return isEmpty() ? null : removeFirst();
+	}
+	
+	/**
+	 * Remove the last element of the list, if any.
+	 * @return The removed element, null if the list is empty.
+	 */
+	@Override
+	public T pollLast() {
+		return isEmpty() ? null : removeLast();
+	}
+	
+	/**
+	 * Remove the head of the list, as a queue.
+	 * @throws NoSuchElementException if the list is empty
+	 * @return The removed element.
+	 */
+	@Override
+	public T remove() {
+		return removeFirst();
+	}
+	
+	/**
+	 * Remove the head of the list, as a queue, if any.
+	 * @return The removed element, null if the list is empty.
+	 */
+	@Override
+	public T poll() {
+		return pollFirst();
+	}
+	
+	/**
+	 * Remove the top of the list, as a stack.
+	 * @throws NoSuchElementException if the list is empty
+	 * @return The removed element.
+	 */
+	@Override
+	public T pop() {
+		return removeFirst();
+	}
+	
+	/**
+	 * What's the first element of the list?
+	 * @throws NoSuchElementException if the list is empty
+	 * @return The first element.
+	 */
+	@Override
+	public T getFirst() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		return first.getF();
+	}
+	
+	/**
+	 * What's the last element of the list?
+	 * @throws NoSuchElementException if the list is empty
+	 * @return The last element.
+	 */
+	@Override
+	public T getLast() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		return last.getL();
+	}
+	
+	/**
+	 * What's the head of the list, as a queue?
+	 * @throws NoSuchElementException if the list is empty
+	 * @return The first element.
+	 */
+	@Override
+	public T element() {
+		return getFirst();
+	}
+	
+	/**
+	 * What's the first element of the list, if any?
+	 * @return The first element, null if the list is empty.
+	 */
+	@Override
+	public T peekFirst() {
+		return isEmpty() ? null : first.getF();
+	}
+	
+	/**
+	 * What's the last element of the list, if any?
+	 * @return The last element, null if the list is empty.
+	 */
+	@Override
+	public T peekLast() {
+		return isEmpty() ? null : last.getL();
+	}
+	
+	/**
+	 * What's the head of the list, as a queue, if any?
+	 * @return The first element, null if the list is empty.
+	 */
+	@Override
+	public T peek() {
+		return peekFirst();
+	}
+	
+	/**
+	 * Remove the first element of the list equal to a given object.
+	 * @param o - the object
+	 * @return true if there was one, false otherwise.
+	 */
+	@Override
+	public boolean removeFirstOccurrence(Object o) {
+		return remove(o);
+	}
+	
+	/**
+	 * Remove the last element of the list equal to a given object.
+	 * @param o - the object
+	 * @return true if there was one, false otherwise.
+	 */
+	@Override
+	public boolean removeLastOccurrence(Object o) {
+		Iterator<T> it = descendingIterator();
+		while(it.hasNext()){
+			if(it.next().equals(o)){
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Remove every element of the list.
+	 * The nodes go back to the pool of the list, if it has one, as many as
+	 * the pool has room for.
+	 * @ensures isEmpty()
+	 */
+	@Override
+	public void clear() {
+		releaseChain(first);
+		first = null;
+		last = null;
+		finger = null;
+		nodes.clear();
+		size = 0;
+		modCount++;
+	}
+	
+	/**
+	 * What's the node holding the indexth position?
+	 * Positions up to REACH nodes away from the finger are found by walking
+	 * from it, the end nodes are found directly, any other through the index.
+	 * @param index - the position
+	 * @requires index >= 0 && index < size()
+	 * @ensures It returns the node holding the indexth position, which
+	 * becomes the finger, and base becomes the position of its first element.
+	 * @return The node holding the indexth position.
+	 */
+	private Node<T> lookfor(int index){
+		Node<T> result = finger;
+		if(result != null){
+			int b = base;
+			int hops = 0;
+			if(index >= b){ //Walk forward
+				for(; hops < REACH && index >= b + result.size(); hops++){
+					b += result.size();
+					result = result.next;
+				}
+			} else { //Walk backward
+				for(; hops < REACH && index < b; hops++){
+					result = result.prev;
+					b -= result.size();
+				}
+			}
+			if(METRICS)
+				metrics.lookupHops += hops;
+			if(b <= index && index < b + result.size()){
+				fingerHits++;
+				finger = result;
+				base = b;
+				return result;
+			}
+		}
+		fingerMisses++;
+		int tail = size - last.size();
+		if(index < first.size()){
+			result = first;
+			base = 0;
+		} else if(index >= tail){
+			result = last;
+			base = tail;
+		} else {
+			//The index may not know about the latest elements of the first
+			//node
+			int lag = nodes.lag(first);
+			result = nodes.find(index - lag);
+			base = nodes.base() + lag;
+			if(METRICS)
+				metrics.indexLookups++;
+		}
+		finger = result;
+		return result;
+	}
+	
+	/**
+	 * What's the node holding the indexth position?
+	 * Unlike lookfor, it changes nothing, so concurrent readers may call it.
+	 * @param index - the position
+	 * @requires index >= 0 && index < size()
+	 * @return The node holding the indexth position, or null if the index
+	 * is being changed at the same time.
+	 */
+	private Node<T> nodeAt(int index){
+		if(index < first.size())
+			return first;
+		if(index >= size - last.size())
+			return last;
+		return nodes.at(index - nodes.lag(first));
+	}
+	
+	/**
+	 * What's the element at the indexth position in the list?
+	 * Unlike get, it doesn't move the finger, so concurrent readers may call
+	 * it. If the list is being changed at the same time, it may return a 
+	 * wrong element or null, or throw a RuntimeException, but it always
+	 * returns.
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @return The element at the indexth position.
+	 */
+	T read(int index) {
+		Node<T> node = nodeAt(index);
+		if(node == null)
+			return null;
+		int i = index - positionOf(node);
+		return i < 0 || i >= node.size() ? null : node.get(i);
+	}
+	
+	/**
+	 * Set the indexth position in the list to a given value.
+	 * Unlike set, it doesn't move the finger, so it may run together with
+	 * read, as long as the list doesn't change its structure meanwhile.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index < size() && value != null
+	 */
+	void write(int index, T value) {
+		Node<T> node = nodeAt(index);
+		node.set(index - positionOf(node), value);
+	}
+	
+	/**
+	 * What's the position of the first element of a node?
+	 * Unlike lookfor, it changes nothing, so concurrent readers may call it.
+	 * @param node - the node
+	 * @requires node belongs to this list
+	 * @return The position of the first element of node.
+	 */
+	private int positionOf(Node<T> node){
+		if(node == first)
+			return 0;
+		if(node == last)
+			return size - last.size();
+		return nodes.position(node) + nodes.lag(first);
+	}
+	
+	/**
+	 * How many lookups were solved by walking from the last node looked for?
+	 * @return The number of lookups near the previous one.
+	 */
+	public long fingerHits() {
+		return fingerHits;
+	}
+	
+	/**
+	 * How many lookups were solved from the ends of the list or through 
+	 * its index?
+	 * @return The number of lookups far from the previous one.
+	 */
+	public long fingerMisses() {
+		return fingerMisses;
+	}
+	
+	/**
+	 * What did the operations of this list do?
+	 * @return The counters of this list, or null unless the JVM runs with
+	 * -Dbdllist.metrics=true.
+	 */
+	public BDLListMetrics metrics() {
+		return metrics;
+	}
+	
+	/**
+	 * How full are the blocks of this list, on average?
+	 * It walks every node.
+	 * @return The number of elements over the capacity of every block, 
+	 * 0 if the list is empty.
+	 */
+	public double fillFactor() {
+		long capacity = 0;
+		for(Node<T> node = first; node != null; node = node.next)
+			capacity += bsize + 1;
+		return capacity == 0 ? 0 : (double) size / capacity;
+	}
+	
+	/**
+	 * How do inserts make room in a full node?
+	 * @return The overflow policy of the list.
+	 */
+	public OverflowPolicy overflowPolicy() {
+		return overflow;
+	}
+	
+	/**
+	 * Sets how inserts make room in a full node, from then on.
+	 * @param policy - the overflow policy
+	 * @requires policy != null
+	 */
+	public void setOverflowPolicy(OverflowPolicy policy) {
+		overflow = policy;
+	}
+	
+	/**
+	 * How much memory does this list take?
+	 * It walks every node.
+	 * @return The number of nodes, their fill and an estimate of the bytes
+	 * they take.
+	 */
+	public BDLListFootprint footprint() {
+		int count = 0;
+		for(Node<T> node = first; node != null; node = node.next)
+			count++;
+		return new BDLListFootprint(count, size, bsize + 1);
+	}
+	
+	/**
+	 * Repacks the elements into full blocks, from the first node on, and
+	 * drops the nodes left empty, in a single pass over the list. Every 
+	 * element moves at most once, to a node before its own, and the index
+	 * is rebuilt at once afterwards, so it takes O(n) time.
+	 * Inserts in the middle of a compacted list split nodes again, so it
+	 * suits lists that are mostly read or changed at their ends.
+	 * @ensures Every node but the last one is full.
+	 */
+	public void compact() {
+		removals = 0;
+		if(isEmpty())
+			return;
+		Node<T> dst = first;
+		for(Node<T> src = first.next; src != null; src = src.next){
+			while(src.size() > 0){
+				if(dst.isFull()){
+					dst = dst.next;
+					if(dst == src)
+						break;
+				}
+				dst.addL(src.getF());
+				src.removeF();
+			}
+		}
+		//The nodes after dst are empty
+		if(dst.next != null){
+			Node<T> dropped = dst.next;
+			dropped.prev = null;
+			dst.next = null;
+			last = dst;
+			releaseChain(dropped);
+		}
+		nodes.clear();
+		nodes.insertChain(first, last);
+		finger = null;
+		modCount++;
+	}
+	
+	/**
+	 * Makes removes compact the list whenever its fill factor drops below
+	 * a threshold. The fill factor is checked after a number of elements 
+	 * close to the number of nodes is removed, so the checks take O(1) 
+	 * amortized time per remove.
+	 * Removes through iterators don't count, as compacting would move the
+	 * elements under them.
+	 * @param threshold - the fill factor, 0 not to compact automatically
+	 * @requires 0 <= threshold && threshold <= 1
+	 */
+	public void setAutoCompaction(double threshold) {
+		compactBelow = threshold;
+		removals = 0;
+	}
+	
+	/**
+	 * Counts removed elements, and compacts the list if it's time to check
+	 * its fill factor and it's below the threshold.
+	 * @param count - the number of elements removed
+	 */
+	private void removed(int count) {
+		if(compactBelow == 0)
+			return;
+		removals += count;
+		if(removals >= Math.max(size / (bsize + 1), BSIZE)){
+			removals = 0;
+			if(fillFactor() < compactBelow)
+				compact();
+		}
+	}
+	
+	/**
+	 * What's the first not full node, at a distance of bsize from curr?
+	 * The distance is never more than BSIZE, as the cost of balancing the
+	 * nodes in between grows with both.
+	 * @param curr - the node to start the search from
+	 * @requires curr != null
+	 * @ensures It returns as the tag return specifies.
+	 * @return null if didn't find any not full nodes at that distance,
+	 * Or the last node that it searched for. If that node is full, didn't find
+	 * any, if it's not, it found.
+	 */
+	private Node<T> lookforEmpty(Node<T> curr) {
+		Node<T> result = curr;
+		boolean found = false;
+		int distance = Math.min(bsize, BSIZE);
+		for(int i = 1; i <= distance && result != null && !found; i++){
+			if(result.isFull()) //It's full, check next node
+				result = result.next;
+			else //Found the node
+				found = true;
+		}
+		return result;
+	}
+	
+	/**
+	 * A snapshot of this list, in time linear in the number of nodes.
+	 * The copy and this list share their blocks until one of them writes 
+	 * to a block, which copies it first, so neither sees the changes made
+	 * to the other afterwards. The copy keeps the block capacity, the pool,
+	 * the overflow policy and the auto-compaction threshold of this list.
+	 * The nodes of this list stay marked as shared for good, as nothing 
+	 * tells them when the copy is dropped or stops sharing their blocks: the
+	 * first write to each block of this list after a clone copies it, 
+	 * whatever became of the copy, and a node dropped before that write
+	 * isn't given back to the pool.
+	 * @return A copy of this list.
+	 */
+	@Override
+	public BDLList<T> clone() {
+		BDLList<T> result = pool == null ? new BDLList<T>(bsize+1) : new BDLList<T>(pool);
+		Node<T> prev = null;
+		for(Node<T> curr = first; curr != null; curr = curr.next){
+			curr.shared = true;
+			Node<T> copy = new Node<T>(curr.elem, null, prev);
+			copy.shared = true;
+			if(prev == null)
+				result.first = copy;
+			else
+				prev.next = copy;
+			prev = copy;
+		}
+		result.last = prev;
+		if(prev != null)
+			result.nodes.insertChain(result.first, result.last);
+		result.size = size;
+		result.overflow = overflow;
+		result.compactBelow = compactBelow;
+		return result;
+	}
+	
+	/**
+	 * Writes the list to a channel, a block at a time, in the format of
+	 * BDLListFormat: each node is written as a run holding the number of 
+	 * its elements and their records.
+	 * @param channel - the channel
+	 * @param codec - the codec of the elements
+	 * @throws IOException if the channel fails or the blocks hold more than
+	 * BDLListFormat.MAX_CAPACITY elements
+	 */
+	public void write(WritableByteChannel channel, Codec<T> codec) throws IOException {
+		int width = codec.width();
+		ByteBuffer buffer = BDLListFormat.buffer(width);
+		BDLListFormat.writeHeader(buffer, width, bsize+1, size);
+		for(Node<T> node = first; node != null; node = node.next){
+			int count = node.size();
+			BDLListFormat.reserve(channel, buffer, Integer.BYTES);
+			buffer.putInt(count);
+			for(int i = 0; i < count; i++){
+				BDLListFormat.reserve(channel, buffer, width);
+				codec.write(buffer, buffer.position(), node.get(i));
+				buffer.position(buffer.position() + width);
+			}
+		}
+		BDLListFormat.flush(channel, buffer);
+	}
+	
+	/**
+	 * Reads a list written by write from a channel.
+	 * Records are decoded straight into full nodes, whatever the runs they
+	 * were written in, and the index is built once at the end.
+	 * @param channel - the channel
+	 * @param codec - the codec of the elements
+	 * @throws IOException if the channel fails or ends before the list, or
+	 * doesn't hold a list of records of codec.width() bytes
+	 * @return The list read, with the capacity of the blocks it was 
+	 * written with.
+	 */
+	public static <T> BDLList<T> read(ReadableByteChannel channel, Codec<T> codec) 
+			throws IOException {
+		int width = codec.width();
+		ByteBuffer buffer = BDLListFormat.buffer(width);
+		buffer.flip();
+		int[] header = BDLListFormat.readHeader(channel, buffer, width);
+		BDLList<T> result = new BDLList<T>(header[0]);
+		Node<T> tail = null;
+		for(int remaining = header[1]; remaining > 0;){
+			BDLListFormat.require(channel, buffer, Integer.BYTES);
+			int count = buffer.getInt();
+			BDLListFormat.checkRun(count, header[0], remaining);
+			for(int i = 0; i < count; i++){
+				BDLListFormat.require(channel, buffer, width);
+				if(tail == null || tail.isFull()){
+					Node<T> node = new Node<T>(new Block<T>(header[0]), null, tail);
+					if(tail == null)
+						result.first = node;
+					else
+						tail.next = node;
+					tail = node;
+				}
+				tail.addL(codec.read(buffer, buffer.position()));
+				buffer.position(buffer.position() + width);
+			}
+			remaining -= count;
+		}
+		if(tail != null){
+			result.last = tail;
+			result.nodes.insertChain(result.first, result.last);
+		}
+		result.size = header[1];
+		return result;
+	}
+	
+	/**
+	 * Contextual representation of BDLList
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		for(T e: this){
+			result.append(e+", ");
+		}
+		if(!isEmpty())
+			result.delete(result.length()-2, result.length());
+		result.append("]");
+		return result.toString();
+	}
+	
+	/**
+	 * Contextual representation of BDLList for debbuging
+	 * @return Contextual representation of BDLList for debbuging
+	 */
+	public String toStringforDebbugging() {
+		StringBuilder result = new StringBuilder();
+		Node<T> curr = first;
+		while(curr!=null){
+			result.append("<-"+curr.elem.toString()+"->");
+			curr = curr.next;
+		}
+		if(result.length() == 0)
+			result.append("Nothing");
+		return result.toString();
+	}
+	
+	/**
+	 * A custom iterator class that traverses the elements of this list.
+	 * This iterator works by traversing the nodes as a proper linked list,
+	 * keeping the node holding the next element and the position of that
+	 * element inside the node's block.
+	 */
+	private final class BDLListIterator implements ListIterator<T> {
+		//Node holding the next element, null at the end of the list
+		private Node<T> node;
+		//Position of the next element inside node
+		private int offset;
+		//Position of the next element in the list
+		private int nextIndex;
+		//Node and position of the element last returned, if any
+		private Node<T> lastNode;
+		private int lastOffset;
+		private int lastRet = -1;
+		private int expectedModCount = BDLList.this.modCount;
+		
+		/**
+		 * Constructor to an iterator starting at the indexth position.
+		 * @param index - the position
+		 * @requires index >= 0 && index <= size()
+		 */
+		private BDLListIterator(int index) {
+			nextIndex = index;
+			relocate();
+		}
+		
+		/**
+		 * Does it have another value?
+		 */
+		@Override
+		public boolean hasNext() {
+			return nextIndex < size;
+		}
+		
+		/**
+		 * Next value.
+		 */
+		@Override
+		public T next() {
+			checkForComodification();
+			if (nextIndex >= size) 
+				throw new NoSuchElementException();
+			T result = node.get(offset);
+			lastNode = node;
+			lastOffset = offset;
+			lastRet = nextIndex;
+			offset++;
+			nextIndex++;
+			if(offset == node.size()){
+				node = node.next;
+				offset = 0;
+			}
+			return result;
+		}
+		
+		/**
+		 * Does it have a previous value?
+		 */
+		@Override
+		public boolean hasPrevious() {
+			return nextIndex > 0;
+		}
+		
+		/**
+		 * Previous value.
+		 */
+		@Override
+		public T previous() {
+			checkForComodification();
+			if (nextIndex <= 0) 
+				throw new NoSuchElementException();
+			if(node == null){
+				node = last;
+				offset = node.size();
+			}
+			if(offset == 0){
+				node = node.prev;
+				offset = node.size();
+			}
+			offset--;
+			nextIndex--;
+			lastNode = node;
+			lastOffset = offset;
+			lastRet = nextIndex;
+			return node.get(offset);
+		}
+		
+		@Override
+		public int nextIndex() {
+			return nextIndex;
+		}
+		
+		@Override
+		public int previousIndex() {
+			return nextIndex - 1;
+		}
+		
+		/**
+		 * Replaces the value last returned.
+		 */
+		@Override
+		public void set(T value) {
+			if (lastRet < 0)
+				throw new IllegalStateException();
+			checkForComodification();
+			lastNode.set(lastOffset, value);
+		}
+		
+		/**
+		 * Adds a value right before the next one.
+		 */
+		@Override
+		public void add(T value) {
+			checkForComodification();
+			if(node == null){ //At the end
+				BDLList.this.add(value);
+				nextIndex++;
+			} else if(!node.isFull()){ //value stays in node
+				insert(node, nextIndex - offset, offset, value);
+				offset++;
+				nextIndex++;
+			} else { //values will move to other nodes
+				insert(node, nextIndex - offset, offset, value);
+				nextIndex++;
+				relocate();
+			}
+			lastRet = -1;
+			expectedModCount = modCount;
+		}
+		
+		/**
+		 * Removes the value last returned.
+		 */
+		@Override
+		public void remove() {
+			if (lastRet < 0)
+				throw new IllegalStateException();
+			checkForComodification();
+			if(lastRet < nextIndex)
+				nextIndex--;
+			if(BDLList.this.remove(lastNode, lastRet - lastOffset, lastOffset)){
+				//The next value took the place of the removed one
+				node = lastNode;
+				offset = lastOffset;
+				if(offset == node.size()){
+					node = node.next;
+					offset = 0;
+				}
+			} else {
+				relocate();
+			}
+			lastRet = -1;
+			expectedModCount = modCount;
+		}
+		
+		/*
+		 * Finds node and offset again from nextIndex.
+		 */
+		private void relocate() {
+			if(nextIndex == size){
+				node = null;
+				offset = 0;
+			} else {
+				node = lookfor(nextIndex);
+				offset = nextIndex - base;
+			}
+		}
+		
+		private void checkForComodification() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+	
+	/**
+	 * An iterator for the elements in the BDLList.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new BDLListIterator(0);
+	}
+	
+	/**
+	 * A spliterator over a range of positions of this list, which walks the 
+	 * blocks of the nodes directly and splits the range at the boundary 
+	 * between two nodes, close to its middle.
+	 */
+	private final class BDLListSpliterator implements Spliterator<T> {
+		//Node holding the next element
+		private Node<T> node;
+		//Position of the next element inside node
+		private int offset;
+		//Position of the next element in the list
+		private int index;
+		//Position after the last element of the range
+		private final int fence;
+		private final int expectedModCount;
+		
+		/**
+		 * Constructor to a spliterator over the positions index..fence-1.
+		 * @param node - the node holding the indexth position
+		 * @param offset - the position of index inside node
+		 * @param index - the first position
+		 * @param fence - the position after the last one
+		 * @param expectedModCount - the modCount the list must keep
+		 */
+		private BDLListSpliterator(Node<T> node, int offset, int index,
+				int fence, int expectedModCount) {
+			this.node = node;
+			this.offset = offset;
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if(index >= fence)
+				return false;
+			T value = node.get(offset);
+			offset++;
+			index++;
+			if(offset == node.size()){
+				node = node.next;
+				offset = 0;
+			}
+			action.accept(value);
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			while(index < fence){
+				Block<T> block = node.elem;
+				int end = Math.min(block.size(), offset + fence - index);
+				for(int i = offset; i < end; i++)
+					action.accept(block.get(i));
+				index += end - offset;
+				if(end == block.size()){
+					node = node.next;
+					offset = 0;
+				} else {
+					offset = end;
+				}
+			}
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+		
+		@Override
+		public Spliterator<T> trySplit() {
+			int lo = index;
+			int hi = fence;
+			if(hi - lo < 2)
+				return null;
+			int mid = (lo + hi) >>> 1;
+			Node<T> m = nodeAt(mid);
+			int start = positionOf(m);
+			int end = start + m.size();
+			//The node boundary nearest to mid, strictly inside the range
+			int cut = mid - start <= end - mid ? start : end;
+			if(cut <= lo)
+				cut = end;
+			if(cut >= hi)
+				cut = start;
+			if(cut <= lo || cut >= hi)
+				return null;
+			Spliterator<T> prefix = new BDLListSpliterator(node, offset, lo, 
+					cut, expectedModCount);
+			node = cut == start ? m : m.next;
+			offset = 0;
+			index = cut;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+		
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | 
+					Spliterator.SUBSIZED | Spliterator.NONNULL;
+		}
+	}
+	
+	/**
+	 * A spliterator for the elements in the BDLList, which splits at node
+	 * boundaries.
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		return new BDLListSpliterator(first, 0, 0, size, modCount);
+	}
+	
+	/**
+	 * A sequential stream over the elements in the BDLList.
+	 * @return A stream of the elements of this list.
+	 */
+	@Override
+	public Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * A parallel stream over the elements in the BDLList, split at node
+	 * boundaries.
+	 * @return A possibly parallel stream of the elements of this list.
+	 */
+	@Override
+	public Stream<T> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * A list iterator for the elements in the BDLList.
+	 * @return A list iterator starting at the beginning of the list.
+	 */
+	public ListIterator<T> listIterator() {
+		return new BDLListIterator(0);
+	}
+	
+	/**
+	 * A list iterator for the elements in the BDLList, starting at a given
+	 * position.
+	 * @param index - the position of the first element returned by next()
+	 * @requires index >= 0 && index <= size()
+	 * @return A list iterator starting at the indexth position.
+	 */
+	public ListIterator<T> listIterator(int index) {
+		return new BDLListIterator(index);
+	}
+	
+	/**
+	 * An iterator for the elements in the BDLList, from the last to the
+	 * first one.
+	 * @return An iterator in reverse order.
+	 */
+	@Override
+	public Iterator<T> descendingIterator() {
+		final BDLListIterator it = new BDLListIterator(size);
+		return new Iterator<T>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasPrevious();
+			}
+			
+			@Override
+			public T next() {
+				return it.previous();
+			}
+			
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+	
+	/*
+	 * A view of a range of the list, as in subList.
+	 */
+	private final class SubList extends AbstractList<T> {
+		
+		/* *** Fields *** */
+		private final int offset;
+		private int length;
+		private int expectedModCount = BDLList.this.modCount;
+		
+		/* *** Constructor *** */
+		/**
+		 * Constructor to a view of a range of the list.
+		 * @param from - the position of the first element of the view
+		 * @param to - the position after the last element of the view
+		 */
+		private SubList(int from, int to) {
+			this.offset = from;
+			this.length = to - from;
+		}
+		
+		/* *** Methods *** */
+		@Override
+		public int size() {
+			checkForComodification();
+			return length;
+		}
+		
+		@Override
+		public T get(int index) {
+			checkIndex(index, length);
+			return BDLList.this.get(offset + index);
+		}
+		
+		@Override
+		public T set(int index, T value) {
+			checkIndex(index, length);
+			T result = BDLList.this.get(offset + index);
+			BDLList.this.set(offset + index, value);
+			return result;
+		}
+		
+		@Override
+		public void add(int index, T value) {
+			checkIndex(index, length + 1);
+			if(offset + index == BDLList.this.size)
+				BDLList.this.add(value);
+			else
+				BDLList.this.add(offset + index, value);
+			changed(1);
+		}
+		
+		@Override
+		public boolean addAll(int index, Collection<? extends T> c) {
+			checkIndex(index, length + 1);
+			int count = c.size();
+			if(count == 0)
+				return false;
+			BDLList.this.addAll(offset + index, c);
+			changed(count);
+			return true;
+		}
+		
+		@Override
+		public boolean addAll(Collection<? extends T> c) {
+			return addAll(length, c);
+		}
+		
+		@Override
+		public T remove(int index) {
+			checkIndex(index, length);
+			T result = BDLList.this.remove(offset + index);
+			changed(-1);
+			return result;
+		}
+		
+		@Override
+		protected void removeRange(int from, int to) {
+			checkForComodification();
+			BDLList.this.removeRange(offset + from, offset + to);
+			changed(from - to);
+		}
+		
+		/*
+		 * Keeps track of a structural change made through this view.
+		 */
+		private void changed(int delta) {
+			length += delta;
+			expectedModCount = BDLList.this.modCount;
+			modCount++;
+		}
+		
+		private void checkIndex(int index, int bound) {
+			checkForComodification();
+			if(index < 0 || index >= bound)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+		}
+		
+		private void checkForComodification() {
+			if(BDLList.this.modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+	
+	/*
+	 * A k-way merge of ranges of sorted nodes into a chain of full nodes.
+	 * The nodes play a tournament (a tree of losers), so each element 
+	 * merged costs a single comparison per level of the tree. Ties go to 
+	 * the node that comes first in the list, so it's stable.
+	 */
+	private static final class Merge<T> {
+		
+		/* *** Fields *** */
+		//The list sorted, whose pool the new nodes come from
+		private final BDLList<T> list;
+		private final Node<T>[] runs;
+		private final Comparator<? super T> c;
+		//Next position and end of the range of each node
+		private int[] pos;
+		private int[] end;
+		//Next element of each node
+		private final Object[] next;
+		//Loser of the game played at each inner position of the tree, 
+		//and the winner at 0. Node i plays from leaf runs.length+i
+		private final int[] tree;
+		//Where to keep the nodes emptied by the merge, null to keep them
+		private ArrayDeque<Node<T>> recycle;
+		//Number of nodes allocated, as the pool had none
+		private int allocated = 0;
+		
+		/* *** Constructor *** */
+		/**
+		 * Constructor to a merge of every element of some sorted nodes.
+		 * @param list - the list of the nodes
+		 * @param runs - the nodes
+		 * @param c - the comparator they are sorted by
+		 */
+		private Merge(BDLList<T> list, Node<T>[] runs, Comparator<? super T> c) {
+			this.list = list;
+			this.runs = runs;
+			this.c = c;
+			this.pos = new int[runs.length];
+			this.end = new int[runs.length];
+			for(int i = 0; i < runs.length; i++)
+				end[i] = runs[i].size();
+			this.next = new Object[runs.length];
+			this.tree = new int[runs.length];
+		}
+		
+		/* *** Methods *** */
+		/**
+		 * Merges the ranges into a chain of full nodes, the ones emptied by
+		 * the merge if it recycles them, or else ones from the pool of the
+		 * list, or else new ones.
+		 * @param capacity - the capacity of the blocks of the new nodes
+		 * @return The first node of the chain, null if the ranges are 
+		 * empty.
+		 */
+		@SuppressWarnings("unchecked")
+		private Node<T> run(int capacity) {
+			int k = runs.length;
+			int left = 0;
+			for(int i = 0; i < k; i++){
+				if(pos[i] < end[i]){
+					next[i] = runs[i].get(pos[i]);
+					left += end[i] - pos[i];
+				}
+			}
+			//Play every game, from the leaves up
+			int[] winners = new int[2 * k];
+			for(int i = 0; i < k; i++)
+				winners[k + i] = i;
+			for(int t = k - 1; t > 0; t--){
+				int a = winners[2 * t];
+				int b = winners[2 * t + 1];
+				boolean aWins = beats(a, b);
+				winners[t] = aWins ? a : b;
+				tree[t] = aWins ? b : a;
+			}
+			tree[0] = winners[1];
+			Node<T> head = null;
+			Node<T> tail = null;
+			for(; left > 0; left--){
+				int i = tree[0];
+				if(tail == null || tail.isFull()){
+					Node<T> node = recycle == null || recycle.isEmpty() 
+							? list.pooledNode() : recycle.pop();
+					if(node == null){
+						node = new Node<T>(new Block<T>(capacity), null, null);
+						allocated++;
+					}
+					node.next = null;
+					node.prev = tail;
+					if(tail == null)
+						head = node;
+					else
+						tail.next = node;
+					tail = node;
+				}
+				tail.addL((T) next[i]);
+				if(++pos[i] < end[i]){
+					next[i] = runs[i].get(pos[i]);
+				} else if(recycle != null){
+					runs[i].elem.clear();
+					recycle.push(runs[i]);
+				}
+				//Replay the games of i, up to the root
+				int winner = i;
+				for(int t = (k + i) / 2; t > 0; t /= 2){
+					if(beats(tree[t], winner)){
+						int loser = winner;
+						winner = tree[t];
+						tree[t] = loser;
+					}
+				}
+				tree[0] = winner;
+			}
+			return head;
+		}
+		
+		/*
+		 * Does the next element of the ath node go before the one of the 
+		 * bth? Nodes with no elements left lose to any other.
+		 */
+		@SuppressWarnings("unchecked")
+		private boolean beats(int a, int b) {
+			if(pos[a] == end[a])
+				return false;
+			if(pos[b] == end[b])
+				return true;
+			int result = c.compare((T) next[a], (T) next[b]);
+			return result < 0 || result == 0 && a < b;
+		}
 	}
 }
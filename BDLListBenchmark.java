@@ -0,0 +1,97 @@
+import java.util.Random;
+
+/**
+ * A class to measure the cost of the operations of BDLList for different
+ * block capacities, useful to choose the capacity that best fits a workload.
+ *
+ * For each capacity, from 4 to 4096, it times appending elements to an empty
+ * list, reading elements at random positions and inserting elements in the
+ * middle of the list, and prints the average time per operation.
+ *
+ * Usage: java BDLListBenchmark [size] [operations]
+ */
+public class BDLListBenchmark {
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		new BDLListBenchmark(size, operations).sweep();
+	}
+
+	/*
+	 * Smallest and largest block capacities to measure.
+	 */
+	private static final int MIN_CAPACITY = 4;
+	private static final int MAX_CAPACITY = 4096;
+
+	/*
+	 * Number of rounds run before measuring, to let the JIT compiler
+	 * warm up.
+	 */
+	private static final int WARMUP_ROUNDS = 2;
+
+	/*
+	 * Number of elements in the lists measured.
+	 */
+	private final int size;
+
+	/*
+	 * Number of gets and of middle inserts measured.
+	 */
+	private final int operations;
+
+	/*
+	 * Sink for the values read, so that reads are not optimized away.
+	 */
+	private long sink;
+
+
+	public BDLListBenchmark(int size, int operations) {
+		this.size = size;
+		this.operations = operations;
+	}
+
+	/**
+	 * Measures every capacity and prints a line for each one, in ns/op.
+	 */
+	public void sweep() {
+		System.out.printf("size=%d operations=%d%n", size, operations);
+		System.out.printf("%10s %12s %12s %12s%n",
+				"capacity", "append", "get", "insert(mid)");
+		for (int capacity = MIN_CAPACITY; capacity <= MAX_CAPACITY; capacity *= 2) {
+			for (int i = 0; i < WARMUP_ROUNDS; i++)
+				measure(capacity);
+			double[] result = measure(capacity);
+			System.out.printf("%10d %12.1f %12.1f %12.1f%n",
+					capacity, result[0], result[1], result[2]);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+	/*
+	 * Times the three workloads on a list with the given block capacity.
+	 * Returns the ns/op of append, get and middle insert.
+	 */
+	private double[] measure(int capacity) {
+		Random rand = new Random(capacity);
+		BDLList<Integer> list = new BDLList<Integer>(capacity);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < size; i++)
+			list.add(i);
+		double append = (double) (System.nanoTime() - start) / size;
+
+		start = System.nanoTime();
+		for (int i = 0; i < operations; i++)
+			sink += list.get(rand.nextInt(size));
+		double get = (double) (System.nanoTime() - start) / operations;
+
+		start = System.nanoTime();
+		for (int i = 0; i < operations; i++)
+			list.add(list.size() / 2, i);
+		double insert = (double) (System.nanoTime() - start) / operations;
+
+		return new double[] {append, get, insert};
+	}
+}
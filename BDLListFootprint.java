@@ -0,0 +1,113 @@
+/**
+ * How much memory a BDLList takes, as reported by BDLList.footprint().
+ *
+ * The bytes are an estimate of the shallow size of the nodes, their blocks
+ * and the arrays of the blocks on a 64 bit JVM with compressed references,
+ * the default for heaps under 32 GB: 12 byte object headers, 4 byte
+ * references and sizes aligned to 8 bytes. The elements themselves are not
+ * counted, as they may be shared with other structures.
+ */
+public class BDLListFootprint {
+
+	/* ********* FINAL FIELDS ********** */
+	//Bytes of a node: header, five links, three ints, a block and a flag
+	static final int NODE_BYTES = align(12 + 5 * 4 + 3 * 4 + 4 + 1);
+	//Bytes of a block without its array: header, array and four ints
+	static final int BLOCK_BYTES = align(12 + 4 + 4 * 4);
+	//Bytes of the header of an array
+	static final int ARRAY_HEADER = 16;
+
+	/* ************ FIELDS ************* */
+	private final int nodes;
+	private final int size;
+	private final int capacity;
+
+	/* ********* CONSTRUCTORS ********** */
+
+	/**
+	 * Constructor to the footprint of a list.
+	 * @param nodes - the number of nodes of the list
+	 * @param size - the number of elements of the list
+	 * @param capacity - the capacity of the blocks
+	 */
+	BDLListFootprint(int nodes, int size, int capacity) {
+		this.nodes = nodes;
+		this.size = size;
+		this.capacity = capacity;
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * How many nodes does the list have?
+	 * @return The number of nodes.
+	 */
+	public int nodes() {
+		return nodes;
+	}
+
+	/**
+	 * How many elements does the list have?
+	 * @return The size of the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * How many elements does a node hold, on average?
+	 * @return The size of the list over the number of nodes, 0 if empty.
+	 */
+	public double averageFill() {
+		return nodes == 0 ? 0 : (double) size / nodes;
+	}
+
+	/**
+	 * How full are the blocks, on average?
+	 * @return The size of the list over the capacity of every block, 0 if
+	 * empty.
+	 */
+	public double fillFactor() {
+		return nodes == 0 ? 0 : (double) size / ((long) nodes * capacity);
+	}
+
+	/**
+	 * How many bytes do the nodes take?
+	 * @return An estimate of the bytes of the nodes, their blocks and the
+	 * arrays of the blocks.
+	 */
+	public long bytes() {
+		long array = align(ARRAY_HEADER + 4L * capacity);
+		return nodes * (NODE_BYTES + BLOCK_BYTES + array);
+	}
+
+	/**
+	 * How many bytes would the nodes take if every block but the last one
+	 * was full, as after BDLList.compact()?
+	 * @return An estimate of the bytes of a compacted list.
+	 */
+	public long compactBytes() {
+		long array = align(ARRAY_HEADER + 4L * capacity);
+		long full = (size + capacity - 1) / capacity;
+		return full * (NODE_BYTES + BLOCK_BYTES + array);
+	}
+
+	private static int align(int bytes) {
+		return (bytes + 7) & ~7;
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * Contextual representation of BDLListFootprint
+	 */
+	@Override
+	public String toString() {
+		return "nodes=" + nodes + " size=" + size + " averageFill="
+				+ String.format("%.2f", averageFill()) + " fillFactor="
+				+ String.format("%.2f", fillFactor()) + " bytes=" + bytes()
+				+ " compactBytes=" + compactBytes();
+	}
+}
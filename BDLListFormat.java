@@ -0,0 +1,146 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The binary format of BDLList and of its primitive variants, shared by
+ * their write and read methods.
+ *
+ * A list is written as a header of four ints (a magic number, the width of
+ * the records, the capacity of the blocks and the size of the list),
+ * followed by a run per node: the number of elements of the node, as an
+ * int, and then their records. Numbers are big-endian.
+ */
+final class BDLListFormat {
+
+	/* ********* FINAL FIELDS ********** */
+	static final int MAGIC = 0x42444C53;
+	//Bytes of the header
+	static final int HEADER = 16;
+	//Largest capacity of the blocks of a list, so that a corrupt or hostile
+	//header can't make read allocate a huge block
+	static final int MAX_CAPACITY = 1 << 20;
+	//Bytes of the buffers used, which hold at least a count and a record
+	private static final int BUFFER = 1 << 16;
+
+	private BDLListFormat() {
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * A heap buffer for reading or writing a list, large enough for the
+	 * header, or for the count of a run and a record. Runs go through it a
+	 * record at a time, so its size doesn't depend on the blocks.
+	 * @param width - the number of bytes of the records
+	 * @requires width > 0
+	 * @return An empty buffer, ready to be written to.
+	 */
+	static ByteBuffer buffer(int width) {
+		return ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE,
+				Math.max(BUFFER, HEADER + Integer.BYTES + (long) width)));
+	}
+
+	/**
+	 * Puts the header of a list in a buffer.
+	 * @param buffer - the buffer
+	 * @param width - the number of bytes of the records
+	 * @param capacity - the capacity of the blocks of the list
+	 * @param size - the size of the list
+	 * @requires buffer.remaining() >= HEADER
+	 * @throws IOException if the blocks hold more than MAX_CAPACITY elements
+	 */
+	static void writeHeader(ByteBuffer buffer, int width, int capacity, int size)
+			throws IOException {
+		if(capacity > MAX_CAPACITY)
+			throw new IOException("blocks of " + capacity + " elements exceed "
+					+ MAX_CAPACITY);
+		buffer.putInt(MAGIC);
+		buffer.putInt(width);
+		buffer.putInt(capacity);
+		buffer.putInt(size);
+	}
+
+	/**
+	 * Reads the header of a list and checks it.
+	 * @param channel - the channel
+	 * @param buffer - the buffer, ready to be read from
+	 * @param width - the number of bytes of the records expected
+	 * @throws IOException if the channel ends before the header, or it's not
+	 * the header of a list of records of width bytes, or its capacity or
+	 * size are out of bounds
+	 * @return The capacity of the blocks and the size of the list.
+	 */
+	static int[] readHeader(ReadableByteChannel channel, ByteBuffer buffer, int width)
+			throws IOException {
+		require(channel, buffer, HEADER);
+		if(buffer.getInt() != MAGIC || buffer.getInt() != width)
+			throw new IOException("not a list of " + width + " byte records");
+		int capacity = buffer.getInt();
+		int size = buffer.getInt();
+		if(capacity < 2 || capacity > MAX_CAPACITY || size < 0)
+			throw new IOException("corrupt header: capacity " + capacity
+					+ ", size " + size);
+		return new int[] {capacity, size};
+	}
+
+	/**
+	 * Checks the number of elements of a run.
+	 * @param count - the number of elements
+	 * @param capacity - the capacity of the blocks of the list
+	 * @param remaining - the number of elements of the list still to read
+	 * @throws IOException if no block could have written the run
+	 */
+	static void checkRun(int count, int capacity, int remaining) throws IOException {
+		if(count <= 0 || count > capacity || count > remaining)
+			throw new IOException("corrupt run of " + count + " elements");
+	}
+
+	/**
+	 * Makes room for some bytes in a buffer, writing its contents to a
+	 * channel if needed.
+	 * @param channel - the channel
+	 * @param buffer - the buffer, ready to be written to
+	 * @param bytes - the number of bytes
+	 * @requires bytes <= buffer.capacity()
+	 */
+	static void reserve(WritableByteChannel channel, ByteBuffer buffer, int bytes)
+			throws IOException {
+		if(buffer.remaining() < bytes)
+			flush(channel, buffer);
+	}
+
+	/**
+	 * Writes the contents of a buffer to a channel, and empties it.
+	 * @param channel - the channel
+	 * @param buffer - the buffer, ready to be written to
+	 */
+	static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Makes some bytes available in a buffer, reading them from a channel
+	 * if needed.
+	 * @param channel - the channel
+	 * @param buffer - the buffer, ready to be read from
+	 * @param bytes - the number of bytes
+	 * @requires bytes <= buffer.capacity()
+	 * @throws EOFException if the channel ends before
+	 */
+	static void require(ReadableByteChannel channel, ByteBuffer buffer, int bytes)
+			throws IOException {
+		if(buffer.remaining() >= bytes)
+			return;
+		buffer.compact();
+		while(buffer.position() < bytes)
+			if(channel.read(buffer) < 0)
+				throw new EOFException();
+		buffer.flip();
+	}
+}
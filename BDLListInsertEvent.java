@@ -0,0 +1,32 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event for an insert in the middle of a BDLList, emitted only when
+ * lists count their operations (see BDLListMetrics) and a recording is
+ * running, e.g. with -XX:StartFlightRecording.
+ */
+@Name("BDLList.Insert")
+@Label("BDLList Insert")
+@Category("BDLList")
+@Description("An insert in the middle of a BDLList, with the path it took")
+class BDLListInsertEvent extends Event {
+
+	@Label("Index")
+	int index;
+
+	@Label("Path")
+	@Description("plain, shift, append or split, see BDLListMetrics")
+	String path;
+
+	@Label("Nodes Touched")
+	@Description("Nodes whose elements moved, told to the positional index")
+	int nodesTouched;
+
+	@Label("Elements Moved")
+	@Description("Elements moved from a node to another, see OverflowPolicy")
+	int moves;
+}
@@ -0,0 +1,166 @@
+/**
+ * What the operations of a BDLList did, to tell why some of them are slow.
+ *
+ * Lists only count when the JVM runs with -Dbdllist.metrics=true. Otherwise
+ * BDLList.metrics() returns null, and the counting code is dropped by the
+ * JIT compiler, as it depends on a static final flag.
+ *
+ * Inserts take one of four paths: PLAIN, when the node has room; SHIFT,
+ * when the last elements of the nodes up to a not full one shift one
+ * position right; APPEND, when they shift into a new last node; and SPLIT,
+ * when the nodes up to BSIZE ahead are all full, a new node is linked after
+ * the full one and the elements of those nodes are spread evenly over them
+ * and the new one. Every path but PLAIN touches several nodes, which the
+ * positional index has to be told about. With other overflow policies (see
+ * OverflowPolicy), SHIFT also stands for elements shared with a neighbour,
+ * and SPLIT for any new node the elements of full nodes are spread over.
+ *
+ * The elements moved from a node to another by inserts tell the cost of
+ * an overflow policy, to weigh against the fill of the blocks it leaves.
+ */
+public class BDLListMetrics {
+
+	/* ********* FINAL FIELDS ********** */
+	public static final int PLAIN = 0;
+	public static final int SHIFT = 1;
+	public static final int APPEND = 2;
+	public static final int SPLIT = 3;
+	static final String[] PATHS = {"plain", "shift", "append", "split"};
+
+	/* ************ FIELDS ************* */
+	//Inserts by path
+	final long[] inserts = new long[PATHS.length];
+	//Nodes touched by inserts, and the most touched by one of them
+	long touched = 0;
+	int maxTouched = 0;
+	//Elements moved from a node to another by inserts
+	long moves = 0;
+	//Nodes walked from the finger by lookups, and lookups through the index
+	long lookupHops = 0;
+	long indexLookups = 0;
+	//Nodes created, and nodes merged or refilled by removes
+	long nodesAllocated = 0;
+	long merges = 0;
+	long borrows = 0;
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * How many inserts took a given path?
+	 * @param path - PLAIN, SHIFT, APPEND or SPLIT
+	 * @return The number of inserts in the middle of the list that took it.
+	 */
+	public long inserts(int path) {
+		return inserts[path];
+	}
+
+	/**
+	 * How many nodes did inserts touch, and had to tell the index about?
+	 * @return The number of nodes touched by every insert, together.
+	 */
+	public long nodesTouched() {
+		return touched;
+	}
+
+	/**
+	 * What's the largest number of nodes touched by one insert?
+	 * @return The length of the longest cascade of shifts, in nodes.
+	 */
+	public int maxNodesTouched() {
+		return maxTouched;
+	}
+
+	/**
+	 * How many elements did inserts move from a node to another?
+	 * @return The number of elements moved.
+	 */
+	public long elementMoves() {
+		return moves;
+	}
+
+	/**
+	 * How many elements did an insert in the middle of the list move from
+	 * a node to another, on average?
+	 * @return The number of elements moved per insert, 0 if there were
+	 * no inserts.
+	 */
+	public double movesPerInsert() {
+		long count = 0;
+		for(long n : inserts)
+			count += n;
+		return count == 0 ? 0 : (double) moves / count;
+	}
+
+	/**
+	 * How many nodes did lookups walk from the finger?
+	 * @return The number of nodes walked.
+	 */
+	public long lookupHops() {
+		return lookupHops;
+	}
+
+	/**
+	 * How many lookups went down the positional index?
+	 * @return The number of lookups through the index.
+	 */
+	public long indexLookups() {
+		return indexLookups;
+	}
+
+	/**
+	 * How many nodes were created?
+	 * @return The number of nodes created.
+	 */
+	public long nodesAllocated() {
+		return nodesAllocated;
+	}
+
+	/**
+	 * How many nodes did removes merge with a neighbour?
+	 * @return The number of merges.
+	 */
+	public long merges() {
+		return merges;
+	}
+
+	/**
+	 * How many nodes did removes refill with an element of a neighbour?
+	 * @return The number of elements borrowed.
+	 */
+	public long borrows() {
+		return borrows;
+	}
+
+	/**
+	 * Counts an insert.
+	 * @param path - the path taken
+	 * @param nodes - the number of nodes touched
+	 * @param moved - the number of elements moved from a node to another
+	 */
+	void insert(int path, int nodes, int moved) {
+		inserts[path]++;
+		touched += nodes;
+		moves += moved;
+		if(nodes > maxTouched)
+			maxTouched = nodes;
+	}
+
+	/**
+	 * Contextual representation of BDLListMetrics
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("inserts[");
+		for(int path = 0; path < PATHS.length; path++){
+			if(path > 0)
+				result.append(", ");
+			result.append(PATHS[path] + "=" + inserts[path]);
+		}
+		result.append("] nodesTouched=" + touched + " maxNodesTouched=" + maxTouched
+				+ " moves=" + moves
+				+ " lookupHops=" + lookupHops + " indexLookups=" + indexLookups
+				+ " nodesAllocated=" + nodesAllocated + " merges=" + merges
+				+ " borrows=" + borrows);
+		return result.toString();
+	}
+}
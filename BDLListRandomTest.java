@@ -1,23 +1,121 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Spliterator;
 
 /**
  * A class to exercise the methods BDLList, useful to check the correctness of 
  * your BDLList implementation with ConGu tool.
  * 
  * It uses instances of lists of Integers.
+ *
+ * Without arguments it prints every operation and the list after it. Every
+ * operation is also applied to an ArrayList, and the list must hold the same
+ * elements, the very same Integer objects, after it, so that a sort must 
+ * keep equal elements in order. With "check" it runs a seeded sequence of
+ * operations, silently, on lists of a few block capacities under every
+ * overflow policy, and prints a line per list that passed. With 
+ * "headless" it prints nothing but a report instead: it generates a workload
+ * from a seed and a mix of operations, runs it against BDLList and lists of
+ * the JDK, once to warm up and once measured, and reports the operations per
+ * second and a latency histogram per operation, together with a checksum of 
+ * the results, which must be the same for every list. A workload may be 
+ * recorded to a trace file, and replayed later with "replay".
+ *
+ * Usage: java BDLListRandomTest [check|headless|replay] [key=value...]
+ *   mix=read|append|middle|balanced (headless, default balanced)
+ *   ops=number of operations (check, default 100000, or headless, default 
+ *     1000000)
+ *   initial=number of elements appended before them (headless, default 100000)
+ *   seed=seed of the operations (check) or of the workload (headless), 
+ *     default 42
+ *   trace=file to record the workload to (headless) or to replay (replay)
+ *   lists=comma separated BDLList, ArrayList, LinkedList (default BDLList,ArrayList)
  * 
  * @author antonialopes (AED 16/17 @ FCUL-DI)
  */
 public class BDLListRandomTest {
 
-	public static void main(String[] args) throws InterruptedException {	
-		new BDLListRandomTest(new BDLList<Integer>(), 101011).run();		
+	public static void main(String[] args) throws IOException {	
+		if (args.length == 0) {
+			new BDLListRandomTest(new BDLList<Integer>(), 101011).run();
+			return;
+		}
+		Map<String, String> options = new HashMap<String, String>();
+		for (int i = 1; i < args.length; i++) {
+			int eq = args[i].indexOf('=');
+			if (eq < 0)
+				throw new IllegalArgumentException("not key=value: " + args[i]);
+			options.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+		}
+		if (args[0].equals("check")) {
+			int ops = Integer.parseInt(options.getOrDefault("ops", "100000"));
+			long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+			for (int capacity : CAPACITIES)
+				for (OverflowPolicy policy : OverflowPolicy.values()) {
+					BDLList<Integer> list = new BDLList<Integer>(capacity);
+					list.setOverflowPolicy(policy);
+					new BDLListRandomTest(list, ops, seed, false).run();
+					System.out.println("OK: " + ops + " operations, capacity "
+							+ capacity + ", " + policy);
+				}
+			return;
+		}
+		Workload workload;
+		if (args[0].equals("headless")) {
+			workload = Workload.generate(Mix.valueOf(
+					options.getOrDefault("mix", "balanced").toUpperCase()),
+					Integer.parseInt(options.getOrDefault("ops", "1000000")),
+					Integer.parseInt(options.getOrDefault("initial", "100000")),
+					Long.parseLong(options.getOrDefault("seed", "42")));
+			if (options.containsKey("trace"))
+				workload.write(options.get("trace"));
+		} else if (args[0].equals("replay")) {
+			if (!options.containsKey("trace"))
+				throw new IllegalArgumentException("replay needs trace=file");
+			workload = Workload.read(options.get("trace"));
+		} else {
+			throw new IllegalArgumentException("unknown mode " + args[0]);
+		}
+		System.out.println(workload);
+		for (String name : options.getOrDefault("lists", "BDLList,ArrayList").split(","))
+			workload.report(subject(name));
 	}
 
 	/*
 	 * Number of operations on lists to test.
 	 */
-	private static final int MAX_OPERATIONS = 7;
+	private static final int MAX_OPERATIONS = 15;
+
+	/*
+	 * The larger number of elements added or removed at once.
+	 */
+	private static final int MAX_BATCH = 20;
+
+	/*
+	 * Block capacities of the lists checked by "check", small ones so that
+	 * operations cross many nodes.
+	 */
+	private static final int[] CAPACITIES = {2, 3, 8, 64};
+
+	/*
+	 * Orders of the sorts, with many equal elements.
+	 */
+	private static final List<Comparator<Integer>> ORDERS = List.of(
+			Comparator.naturalOrder(), Comparator.reverseOrder(),
+			Comparator.comparingInt(value -> value % 3));
 
 	/*
 	 * The larger integer to include in the list.
@@ -34,6 +132,16 @@ public class BDLListRandomTest {
 	 */
 	private BDLList<Integer> list;
 
+	/*
+	 * What the list must hold after each operation.
+	 */
+	private List<Integer> model;
+
+	/*
+	 * Whether to print every operation and the list after it.
+	 */
+	private final boolean verbose;
+
 	/*
 	 * The number of operation calls to perform during the test execution.
 	 */
@@ -43,8 +151,32 @@ public class BDLListRandomTest {
 	public BDLListRandomTest(
 			BDLList<Integer> list, int howMany) {
 		this.list = list;
+		this.model = new ArrayList<Integer>(list);
 		this.howMany = howMany;
 		this.rand = new Random();
+		this.verbose = true;
+	}
+
+	/**
+	 * A test whose operations are always the same for a given seed, so that
+	 * a failing run can be repeated.
+	 */
+	public BDLListRandomTest(
+			BDLList<Integer> list, int howMany, long seed) {
+		this(list, howMany, seed, true);
+	}
+
+	/**
+	 * A test whose operations are always the same for a given seed, which
+	 * prints nothing unless verbose.
+	 */
+	public BDLListRandomTest(
+			BDLList<Integer> list, int howMany, long seed, boolean verbose) {
+		this.list = list;
+		this.model = new ArrayList<Integer>(list);
+		this.howMany = howMany;
+		this.rand = new Random(seed);
+		this.verbose = verbose;
 	}
 
 	/**
@@ -55,57 +187,530 @@ public class BDLListRandomTest {
 		return new Integer(next);
 	}
 
+	/**
+	 * Creates up to MAX_BATCH integers to put in the list
+	 */
+	private List<Integer> newIntegers() {
+		List<Integer> result = new ArrayList<Integer>();
+		for (int i = rand.nextInt(MAX_BATCH + 1); i > 0; i--)
+			result.add(newInteger());
+		return result;
+	}
+
+	private void print(String line) {
+		if (verbose)
+			System.out.println(line);
+	}
+
 	public void run() {
 		for (int i = 0; i < howMany; i++) {
-			int value, index;
+			int value, index, to;
+			List<Integer> values;
 			switch (rand.nextInt(MAX_OPERATIONS)) {
 			case 0: //make
 				if (i%10 == 0){ //to allow the list to grow this 
 					//cannot be executed with the same probability 
-					System.out.println("make()");
-					list = new BDLList<Integer>();
+					print("make()");
+					BDLList<Integer> made = new BDLList<Integer>(list.blockCapacity());
+					made.setOverflowPolicy(list.overflowPolicy());
+					list = made;
+					model = new ArrayList<Integer>();
 					break;
 				}
 			case 1: //isEmpty
-				System.out.print("isEmpty()? ");
-				System.out.println(list.isEmpty());
+				print("isEmpty()? " + list.isEmpty());
+				if (list.isEmpty() != model.isEmpty())
+					throw new AssertionError("isEmpty() is " + list.isEmpty());
 				break;
 			case 2: //size
-				System.out.print("size() = ");			
-				System.out.println(list.size());			
+				print("size() = " + list.size());
+				if (list.size() != model.size())
+					throw new AssertionError("size() is " + list.size() + ", not "
+							+ model.size());
 				break;
 			case 3: //get
 				if (!list.isEmpty()) {
 					index = rand.nextInt(list.size());
-					System.out.print("get("+ index + ") = ");
-					System.out.println(list.get(index));
+					print("get("+ index + ") = " + list.get(index));
+					if (list.get(index) != model.get(index))
+						throw new AssertionError("get(" + index + ") is " 
+								+ list.get(index) + ", not " + model.get(index));
 				}
 				break;
 			case 4: //set
 				if (!list.isEmpty()) {
 					index = rand.nextInt(list.size());
 					value = newInteger();
-					System.out.println("set("+ index + "," + value + ")");
+					print("set("+ index + "," + value + ")");
 					list.set(index, value);
+					model.set(index, value);
 				}
 				break;
 			case 5: //addLast
 				value = newInteger();
-				System.out.println("add("+ value + ")");
+				print("add("+ value + ")");
 				list.add(value);
+				model.add(value);
 				break;
 			case 6: //add
 				if (!list.isEmpty()) {
 					index = rand.nextInt(list.size());
 					value = newInteger();
-					System.out.println("add("+ index + "," + value + ")");
+					print("add("+ index + "," + value + ")");
 					list.add(index, value);
+					model.add(index, value);
 				}
 				break;
+			case 7: //spliterator
+				print("spliterator()");
+				checkSplits(list.spliterator(), 0, list.size());
+				break;
+			case 8: //remove
+				if (!list.isEmpty()) {
+					index = rand.nextInt(list.size());
+					print("remove("+ index + ")");
+					removed(list.remove(index), model.remove(index));
+				}
+				break;
+			case 9: //addFirst
+				value = newInteger();
+				print("addFirst("+ value + ")");
+				list.addFirst(value);
+				model.add(0, value);
+				break;
+			case 10: //removeFirst or removeLast
+				if (!list.isEmpty()) {
+					if (rand.nextBoolean()) {
+						print("removeFirst()");
+						removed(list.removeFirst(), model.remove(0));
+					} else {
+						print("removeLast()");
+						removed(list.removeLast(), model.remove(model.size() - 1));
+					}
+				}
+				break;
+			case 11: //addAll
+				values = newIntegers();
+				print("addAll(" + values + ")");
+				if (list.addAll(values) == values.isEmpty())
+					throw new AssertionError("addAll(" + values + ") returned "
+							+ values.isEmpty());
+				model.addAll(values);
+				break;
+			case 12: //addAll at an index
+				index = rand.nextInt(list.size() + 1);
+				values = newIntegers();
+				print("addAll(" + index + "," + values + ")");
+				if (list.addAll(index, values) == values.isEmpty())
+					throw new AssertionError("addAll(" + index + "," + values 
+							+ ") returned " + values.isEmpty());
+				model.addAll(index, values);
+				break;
+			case 13: //removeRange
+				index = rand.nextInt(list.size() + 1);
+				to = index + rand.nextInt(Math.min(list.size() - index, 2 * MAX_BATCH) + 1);
+				print("removeRange(" + index + "," + to + ")");
+				list.removeRange(index, to);
+				model.subList(index, to).clear();
+				break;
+			case 14: //sort
+				Comparator<Integer> order = ORDERS.get(rand.nextInt(ORDERS.size()));
+				if (rand.nextBoolean()) {
+					print("sort(" + ORDERS.indexOf(order) + ")");
+					list.sort(order);
+				} else {
+					print("parallelSort(" + ORDERS.indexOf(order) + ")");
+					list.parallelSort(order);
+				}
+				model.sort(order);
+				break;
 			}
 			//System.out.println(">>> " + list.toStringForDebugging());
-			System.out.println(">> " + list);
+			if (verbose)
+				System.out.println(">> " + list);
+			checkModel();
+		}
+		print("Done!");
+	}
+
+	/*
+	 * Checks that an element removed from the list is the one removed from 
+	 * the model.
+	 */
+	private void removed(Integer actual, Integer expected) {
+		if (actual != expected)
+			throw new AssertionError("removed " + actual + ", not " + expected);
+	}
+
+	/*
+	 * Checks that the list holds the elements of the model, the same objects
+	 * in the same order.
+	 */
+	private void checkModel() {
+		if (list.size() != model.size())
+			throw new AssertionError("size " + list.size() + ", not " + model.size());
+		Iterator<Integer> expected = model.iterator();
+		int index = 0;
+		for (Integer value : list) {
+			if (value != expected.next())
+				throw new AssertionError("position " + index + " holds " + value 
+						+ ", expected " + model);
+			index++;
+		}
+	}
+
+	/*
+	 * Splits a spliterator over the positions from to to of the list at
+	 * random, and checks that the pieces are sized exactly and hand out
+	 * the elements of their positions, in order.
+	 */
+	private void checkSplits(Spliterator<Integer> split, int from, int to) {
+		int expected = Spliterator.ORDERED | Spliterator.SIZED
+				| Spliterator.SUBSIZED | Spliterator.NONNULL;
+		if ((split.characteristics() & expected) != expected)
+			throw new AssertionError("characteristics " + split.characteristics());
+		if (split.estimateSize() != to - from || split.getExactSizeIfKnown() != to - from)
+			throw new AssertionError("size " + split.estimateSize() + " of ["
+					+ from + ", " + to + ")");
+		if (rand.nextInt(4) != 0) {
+			Spliterator<Integer> prefix = split.trySplit();
+			if (prefix != null) {
+				int cut = from + (int) prefix.estimateSize();
+				if (cut <= from || cut >= to)
+					throw new AssertionError("split of [" + from + ", " + to
+							+ ") at " + cut);
+				checkSplits(prefix, from, cut);
+				checkSplits(split, cut, to);
+				return;
+			}
+		}
+		int[] next = {from};
+		while (next[0] < to && rand.nextBoolean())
+			if (!split.tryAdvance(value -> check(next[0]++, value)))
+				throw new AssertionError("[" + from + ", " + to + ") ended at " + next[0]);
+		split.forEachRemaining(value -> check(next[0]++, value));
+		if (next[0] != to || split.tryAdvance(value -> check(next[0]++, value)))
+			throw new AssertionError("[" + from + ", " + to + ") ended at " + next[0]);
+	}
+
+	private void check(int index, Integer value) {
+		if (!list.get(index).equals(value))
+			throw new AssertionError("position " + index + " holds " + list.get(index)
+					+ ", not " + value);
+	}
+
+	/*
+	 * The operations of headless workloads.
+	 */
+	private static final int GET = 0;
+	private static final int SET = 1;
+	private static final int APPEND = 2;
+	private static final int INSERT = 3;
+	private static final int REMOVE = 4;
+	private static final String[] NAMES = {"get", "set", "append", "insert", 
+		"remove"};
+
+	/*
+	 * Values are below 128, so that boxing them doesn't allocate.
+	 */
+	private static final int MAX_VALUE = 128;
+
+	/*
+	 * The weights of the operations of a workload, in the order of NAMES.
+	 */
+	enum Mix {
+		READ(90, 5, 3, 1, 1),
+		APPEND(20, 0, 70, 0, 10),
+		MIDDLE(30, 0, 0, 50, 20),
+		BALANCED(40, 10, 20, 15, 15);
+
+		private final int[] weights;
+
+		Mix(int... weights) {
+			this.weights = weights;
+		}
+	}
+
+	/*
+	 * A sequence of operations, with their indexes and values, run against
+	 * a list holding initial elements.
+	 */
+	private static final class Workload {
+		private static final int MAGIC = 0x42444C54;
+
+		private final int initial;
+		private final byte[] ops;
+		private final int[] indexes;
+		private final int[] values;
+
+		private Workload(int initial, int count) {
+			this.initial = initial;
+			this.ops = new byte[count];
+			this.indexes = new int[count];
+			this.values = new int[count];
+		}
+
+		/*
+		 * Operations that need an element become appends on an empty list.
+		 */
+		static Workload generate(Mix mix, int count, int initial, long seed) {
+			Workload result = new Workload(initial, count);
+			Random rand = new Random(seed);
+			int total = 0;
+			for (int weight : mix.weights)
+				total += weight;
+			int size = initial;
+			for (int i = 0; i < count; i++) {
+				int pick = rand.nextInt(total);
+				int op = 0;
+				while (pick >= mix.weights[op])
+					pick -= mix.weights[op++];
+				if (size == 0)
+					op = APPEND;
+				result.ops[i] = (byte) op;
+				result.indexes[i] = op == APPEND ? size : rand.nextInt(size);
+				result.values[i] = rand.nextInt(MAX_VALUE);
+				if (op == APPEND || op == INSERT)
+					size++;
+				else if (op == REMOVE)
+					size--;
+			}
+			return result;
+		}
+
+		void write(String file) throws IOException {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(initial);
+				out.writeInt(ops.length);
+				for (int i = 0; i < ops.length; i++) {
+					out.writeByte(ops[i]);
+					out.writeInt(indexes[i]);
+					out.writeInt(values[i]);
+				}
+			}
+		}
+
+		static Workload read(String file) throws IOException {
+			try (DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(file)))) {
+				if (in.readInt() != MAGIC)
+					throw new IOException(file + " is not a trace");
+				Workload result = new Workload(in.readInt(), in.readInt());
+				for (int i = 0; i < result.ops.length; i++) {
+					result.ops[i] = in.readByte();
+					result.indexes[i] = in.readInt();
+					result.values[i] = in.readInt();
+				}
+				return result;
+			}
+		}
+
+		/*
+		 * Runs the workload against a new list, timing every operation.
+		 * Latencies include the cost of reading the clock.
+		 */
+		long run(Subject subject, Histogram[] histograms) {
+			subject.fill(initial);
+			long checksum = 0;
+			for (int i = 0; i < ops.length; i++) {
+				long start = System.nanoTime();
+				checksum += subject.op(ops[i], indexes[i], values[i]);
+				histograms[ops[i]].record(System.nanoTime() - start);
+			}
+			return checksum + subject.size();
+		}
+
+		/*
+		 * Runs the workload twice, to warm up and measured, and prints a 
+		 * report of the second run.
+		 */
+		void report(Subject subject) {
+			run(subject, histograms());
+			Histogram[] histograms = histograms();
+			long start = System.nanoTime();
+			long checksum = run(subject, histograms);
+			long elapsed = System.nanoTime() - start;
+			System.out.printf("%s: %.0f ops/s, checksum %d%n", subject.name,
+					ops.length * 1e9 / elapsed, checksum);
+			for (int op = 0; op < NAMES.length; op++)
+				if (histograms[op].count() > 0)
+					System.out.println("  " + NAMES[op] + " " + histograms[op]);
+		}
+
+		private static Histogram[] histograms() {
+			Histogram[] result = new Histogram[NAMES.length];
+			for (int op = 0; op < NAMES.length; op++)
+				result[op] = new Histogram();
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			int[] counts = new int[NAMES.length];
+			for (byte op : ops)
+				counts[op]++;
+			StringBuilder result = new StringBuilder(ops.length + " ops on "
+					+ initial + " elements:");
+			for (int op = 0; op < NAMES.length; op++)
+				result.append(" " + NAMES[op] + "=" + counts[op]);
+			return result.toString();
+		}
+	}
+
+	/*
+	 * A histogram of latencies in nanoseconds, with eight buckets per power
+	 * of two, so that percentiles are exact up to 1/8 of their value.
+	 */
+	private static final class Histogram {
+		private final long[] buckets = new long[8 * 62];
+		private long count = 0;
+		private long sum = 0;
+		private long max = 0;
+
+		void record(long nanos) {
+			buckets[bucket(nanos)]++;
+			count++;
+			sum += nanos;
+			if (nanos > max)
+				max = nanos;
+		}
+
+		long count() {
+			return count;
+		}
+
+		/*
+		 * The upper bound of the bucket holding a fraction of the latencies.
+		 */
+		long percentile(double fraction) {
+			long rank = (long) Math.ceil(fraction * count);
+			long seen = 0;
+			for (int b = 0; b < buckets.length; b++) {
+				seen += buckets[b];
+				if (seen >= rank)
+					return Math.min(upper(b), max);
+			}
+			return max;
+		}
+
+		private static int bucket(long nanos) {
+			if (nanos < 8)
+				return (int) Math.max(nanos, 0);
+			int exp = 63 - Long.numberOfLeadingZeros(nanos);
+			return (exp - 2) * 8 + (int) ((nanos >>> (exp - 3)) & 7);
+		}
+
+		private static long upper(int bucket) {
+			if (bucket < 8)
+				return bucket;
+			int exp = bucket / 8 + 2;
+			return ((9L + bucket % 8) << (exp - 3)) - 1;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("n=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns",
+					count, (double) sum / count, percentile(0.5), percentile(0.99),
+					percentile(0.999), max);
+		}
+	}
+
+	private static Subject subject(String name) {
+		switch (name) {
+		case "BDLList": return new BDLListSubject();
+		case "ArrayList": return new ListSubject(false);
+		case "LinkedList": return new ListSubject(true);
+		default: throw new IllegalArgumentException("unknown list " + name);
+		}
+	}
+
+	/*
+	 * A list under a workload. op returns what get and remove return, 0 for
+	 * the other operations.
+	 */
+	private abstract static class Subject {
+		final String name;
+
+		Subject(String name) {
+			this.name = name;
+		}
+
+		abstract void fill(int size);
+
+		abstract int size();
+
+		abstract int op(int operation, int index, int value);
+	}
+
+	/*
+	 * Adapter for BDLList.
+	 */
+	private static final class BDLListSubject extends Subject {
+		private BDLList<Integer> list;
+
+		BDLListSubject() {
+			super("BDLList");
+		}
+
+		@Override
+		void fill(int size) {
+			list = new BDLList<Integer>();
+			for (int i = 0; i < size; i++)
+				list.add(i % MAX_VALUE);
+		}
+
+		@Override
+		int size() {
+			return list.size();
+		}
+
+		@Override
+		int op(int operation, int index, int value) {
+			switch (operation) {
+			case GET: return list.get(index);
+			case SET: list.set(index, value); return 0;
+			case APPEND: list.add(value); return 0;
+			case INSERT: list.add(index, value); return 0;
+			default: return list.remove(index);
+			}
+		}
+	}
+
+	/*
+	 * Adapter for the lists of the JDK.
+	 */
+	private static final class ListSubject extends Subject {
+		private final boolean linked;
+		private List<Integer> list;
+
+		ListSubject(boolean linked) {
+			super(linked ? "LinkedList" : "ArrayList");
+			this.linked = linked;
+		}
+
+		@Override
+		void fill(int size) {
+			list = linked ? new LinkedList<Integer>() : new ArrayList<Integer>();
+			for (int i = 0; i < size; i++)
+				list.add(i % MAX_VALUE);
+		}
+
+		@Override
+		int size() {
+			return list.size();
+		}
+
+		@Override
+		int op(int operation, int index, int value) {
+			switch (operation) {
+			case GET: return list.get(index);
+			case SET: list.set(index, value); return 0;
+			case APPEND: list.add(value); return 0;
+			case INSERT: list.add(index, value); return 0;
+			default: return list.remove(index);
+			}
 		}
-		System.out.println("Done!");		
 	}
 }
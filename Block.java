@@ -1,3 +1,6 @@
+// Template of IntBlock, LongBlock and DoubleBlock: run tools/specialize.py after editing it.
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.StringJoiner;
 
 /**
@@ -38,20 +41,28 @@ public class Block<E> implements Cloneable{
 	 */
 	private int size;
 
+	/*
+	 * The capacity minus one, if the capacity is a power of two, so that
+	 * positions wrap around with a bit mask. -1 otherwise.
+	 */
+	private final int mask;
+
 
 	/* ************ CONSTRUCTORS  ************ */
 
 	/**
 	 * Constructor for an empty block with a given capacity.
+	 * Blocks whose capacity is a power of two are slightly faster.
 	 * @param capacity	The capacity of the block
 	 * @requires capacity > 0
 	 */
 	@SuppressWarnings("unchecked")
 	public Block(int capacity) {
 		elems = (E[]) new Object[capacity];
-		this.indexFirst = 1;
+		this.indexFirst = 1 % capacity;
 		this.indexLast = 0;
 		this.size = 0;
+		this.mask = (capacity & (capacity - 1)) == 0 ? capacity - 1 : -1;
 	}
 
 
@@ -104,6 +115,9 @@ public class Block<E> implements Cloneable{
 	 * Inserts the specified element at the specified position in the block's sequence. 
 	 * Shifts the element currently at that position and any subsequent elements 
 	 * to the right (adds one to their indices).
+	 * Only the shorter side of the sequence is moved in the array: either the
+	 * elements before the position, one place back, or the others, one 
+	 * place forward.
 	 * @param element	The element to add.
 	 * @param index		The position where the element should be added.
 	 * @requires !isFull() && 0 <= index && index < size() && element!=null
@@ -113,12 +127,15 @@ public class Block<E> implements Cloneable{
 			//no need to shift elements in this case
 			addFirst(element);
 		else {
-			int actIndex = add(index, indexFirst);
-			addLast(elems[indexLast]);
-			for(int i = dec(indexLast); i != actIndex && i != indexFirst; i = dec(i)){
-				elems[i] = elems[dec(i)];
+			if (index < size - index) {
+				shiftBack(indexFirst, index);
+				indexFirst = dec(indexFirst);
+			} else {
+				shiftForward(plus(indexFirst, index), size - index);
+				indexLast = inc(indexLast);
 			}
-			elems[actIndex] = element;
+			elems[plus(indexFirst, index)] = element;
+			size++;
 		}
 	}
 
@@ -126,6 +143,7 @@ public class Block<E> implements Cloneable{
 	 * Removes the element at the specified position in the block's sequence. 
 	 * Shifts the elements at any subsequent elements 
 	 * to the left (subtracts one to their indices).
+	 * Only the shorter side of the sequence is moved in the array.
 	 * @param index The position where the element should be removed.
 	 * @requires 0 <= index && index < size()
 	 */
@@ -135,16 +153,50 @@ public class Block<E> implements Cloneable{
 		else if (index == size() - 1)
 			removeLast();
 		else {
-			int currentIndex = add(indexFirst, index); 
-			while (currentIndex != indexLast){
-				elems[currentIndex] = elems[inc(currentIndex)];
-				currentIndex = inc(currentIndex);
+			if (index < size - index - 1) {
+				shiftForward(indexFirst, index);
+				elems[indexFirst] = null;
+				indexFirst = inc(indexFirst);
+			} else {
+				shiftBack(plus(indexFirst, index + 1), size - index - 1);
+				elems[indexLast] = null;
+				indexLast = dec(indexLast);
 			}
-			indexLast = dec(indexLast);
 			size--;
 		}
 	}
 
+	/**
+	 * Removes the elements from position from, inclusive, to position to,
+	 * exclusive, in the block's sequence. Shifts any subsequent elements
+	 * to the left (subtracts to-from to their indices).
+	 * Only the shorter side of the sequence is moved in the array.
+	 * @param from The position of the first element to remove.
+	 * @param to The position after the last element to remove.
+	 * @requires 0 <= from && from <= to && to <= size()
+	 */
+	public void removeRange(int from, int to){
+		int count = to - from;
+		if (count == 0)
+			return;
+		if (from < size - to) {
+			for (int i = from - 1; i >= 0; i--)
+				elems[plus(indexFirst, i + count)] = elems[plus(indexFirst, i)];
+			for (int i = 0; i < count; i++) {
+				elems[indexFirst] = null;
+				indexFirst = inc(indexFirst);
+			}
+		} else {
+			for (int i = to; i < size; i++)
+				elems[plus(indexFirst, i - count)] = elems[plus(indexFirst, i)];
+			for (int i = 0; i < count; i++) {
+				elems[indexLast] = null;
+				indexLast = dec(indexLast);
+			}
+		}
+		size -= count;
+	}
+
 	/**
  	 * @return The element at the beginning of the block's sequence.	
 	 * @requires !isEmpty()
@@ -166,7 +218,7 @@ public class Block<E> implements Cloneable{
 	 * @requires 0 <= index && index < size()
 	 */
 	public E get(int index) {
-		return elems[add(indexFirst,index)];
+		return elems[plus(indexFirst,index)];
 	}
 
 	/**
@@ -189,6 +241,15 @@ public class Block<E> implements Cloneable{
 		size--;
 	}
 
+	/**
+	 * Remove every element of the block, as when it's about to be reused. 
+	 * @ensures isEmpty()
+	 */
+	public void clear() {
+		while (size > 0)
+			removeLast();
+	}
+
 	/**
 	 * Replaces the element at the specified position in the block's sequence 
  	 * with the specified element.
@@ -197,7 +258,7 @@ public class Block<E> implements Cloneable{
 	 * @requires 0 <= index && index < size() && element!=null
 	 */
 	public void set(int index, E element) {
-		elems[add(indexFirst,index)] = element;	
+		elems[plus(indexFirst,index)] = element;	
 	}
 
 	/**
@@ -207,24 +268,100 @@ public class Block<E> implements Cloneable{
 		return  size;
 	}
 
+	/**
+	 * Sorts the block's sequence in place, in the order induced by a 
+	 * comparator. The sort is stable.
+	 * If the sequence wraps around the end of the array, it's first moved
+	 * to the beginning of the array, in place.
+	 * @param c The comparator.
+	 */
+	public void sort(Comparator<? super E> c) {
+		if (size == 0)
+			return;
+		if (indexFirst > indexLast) {
+			//Rotate the array left by indexFirst, with three reversals
+			reverse(0, indexFirst);
+			reverse(indexFirst, elems.length);
+			reverse(0, elems.length);
+			indexFirst = 0;
+			indexLast = size - 1;
+		}
+		Arrays.sort(elems, indexFirst, indexFirst + size, c);
+	}
+
 	// private matter
 
 	/*
-	 * Arithmetic modulo the capacity of the block.
+	 * Reverses the positions of the array from from, inclusive, to to,
+	 * exclusive.
+	 */
+	private void reverse(int from, int to) {
+		for (int i = from, j = to - 1; i < j; i++, j--) {
+			E temp = elems[i];
+			elems[i] = elems[j];
+			elems[j] = temp;
+		}
+	}
+
+	/*
+	 * Arithmetic modulo the capacity of the block, with a mask when the
+	 * capacity is a power of two and without divisions otherwise.
 	 */
 	
-	//@requires i>=0
+	//@requires 0<=i && i<capacity()
 	private int inc(int i) {
-		return (i + 1) % elems.length;
+		if (mask >= 0)
+			return (i + 1) & mask;
+		return i + 1 == elems.length ? 0 : i + 1;
 	}
-	//@requires i>=0
+	//@requires 0<=i && i<capacity()
 	private  int dec(int i) {
-		return (i + elems.length - 1) % elems.length;
+		if (mask >= 0)
+			return (i - 1) & mask;
+		return i == 0 ? elems.length - 1 : i - 1;
+	}
+
+	//@requires 0<=i && i<capacity() && 0<=j && j<=capacity()
+	private  int plus(int i, int j) {
+		if (mask >= 0)
+			return (i + j) & mask;
+		return i + j >= elems.length ? i + j - elems.length : i + j;
 	}
 
-	//@requires i>=0 && j>=0
-	private  int add(int i, int j) {
-		return (i + j) % elems.length;
+	/*
+	 * Moves count elements of the array, the first one at position from,
+	 * one place forward, wrapping around. Copies the contiguous segments 
+	 * from the last one to the first.
+	 */
+	private void shiftForward(int from, int count) {
+		if (count == 0)
+			return;
+		int src = plus(from, count - 1);
+		int dst = inc(src);
+		while (count > 0) {
+			int n = Math.min(count, Math.min(src, dst) + 1);
+			System.arraycopy(elems, src - n + 1, elems, dst - n + 1, n);
+			count -= n;
+			src = dec(src - n + 1);
+			dst = dec(dst - n + 1);
+		}
+	}
+
+	/*
+	 * Moves count elements of the array, the first one at position from,
+	 * one place back, wrapping around. Copies the contiguous segments 
+	 * from the first one to the last.
+	 */
+	private void shiftBack(int from, int count) {
+		int src = from;
+		int dst = dec(from);
+		while (count > 0) {
+			int n = Math.min(count, elems.length - Math.max(src, dst));
+			System.arraycopy(elems, src, elems, dst, n);
+			count -= n;
+			src = plus(src, n);
+			dst = plus(dst, n);
+		}
 	}
 
 
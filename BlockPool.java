@@ -0,0 +1,135 @@
+/**
+ * A pool of the nodes of BDLLists, with their blocks, to be reused instead
+ * of allocating new ones when lists grow after they shrank.
+ *
+ * Lists given the same pool (see BDLList(BlockPool)) share it, and their
+ * blocks all have the capacity of the pool. A node goes back to the pool
+ * when its list drops it, cleared, so that the pool doesn't keep elements
+ * alive, and the pool keeps at most a given number of them, letting the
+ * others be garbage collected. A list that keeps changing at a steady size
+ * then takes from the pool every node it needs and allocates nothing.
+ *
+ * Nodes whose block is shared with a clone never go back to the pool.
+ * The pool may be shared by lists used from different threads.
+ */
+public final class BlockPool {
+
+	/* ************ FIELDS ************* */
+	//Capacity of the blocks
+	private final int capacity;
+	//Nodes retained, as a stack
+	private final Object[] free;
+	private int count = 0;
+	//Nodes taken from the pool, and asked for when it was empty
+	private long reused = 0;
+	private long misses = 0;
+
+	/* ********* CONSTRUCTORS ********** */
+
+	/**
+	 * Constructor to an empty pool.
+	 * @param capacity - the capacity of the blocks of the lists using it
+	 * @param maxRetained - the largest number of nodes the pool keeps
+	 * @requires capacity > 1 && maxRetained >= 0
+	 */
+	public BlockPool(int capacity, int maxRetained) {
+		this.capacity = capacity;
+		this.free = new Object[maxRetained];
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * What's the capacity of the blocks of the pool?
+	 * @return The capacity of the blocks.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * What's the largest number of nodes the pool keeps?
+	 * @return The bound on the nodes retained.
+	 */
+	public int maxRetained() {
+		return free.length;
+	}
+
+	/**
+	 * How many nodes does the pool keep now?
+	 * @return The number of nodes retained.
+	 */
+	public synchronized int retained() {
+		return count;
+	}
+
+	/**
+	 * How many nodes were taken from the pool?
+	 * @return The number of nodes reused.
+	 */
+	public synchronized long reused() {
+		return reused;
+	}
+
+	/**
+	 * How many nodes were asked for when the pool was empty, and had to be
+	 * allocated?
+	 * @return The number of misses.
+	 */
+	public synchronized long misses() {
+		return misses;
+	}
+
+	/**
+	 * Drops every node retained.
+	 */
+	public synchronized void clear() {
+		while(count > 0)
+			free[--count] = null;
+	}
+
+	/**
+	 * Takes a node from the pool.
+	 * @return An empty node, null if the pool is empty.
+	 */
+	synchronized Object take() {
+		if(count == 0){
+			misses++;
+			return null;
+		}
+		reused++;
+		Object result = free[--count];
+		free[count] = null;
+		return result;
+	}
+
+	/**
+	 * Gives a node back to the pool, if it has room for it.
+	 * @param node - the node
+	 * @requires node is empty and no list links to it
+	 * @return true if the pool kept node, false otherwise.
+	 */
+	synchronized boolean give(Object node) {
+		if(count == free.length)
+			return false;
+		free[count++] = node;
+		return true;
+	}
+
+	/**
+	 * How many more nodes would the pool keep?
+	 * @return The room left in the pool.
+	 */
+	synchronized int room() {
+		return free.length - count;
+	}
+
+	/**
+	 * Contextual representation of BlockPool
+	 */
+	@Override
+	public synchronized String toString() {
+		return "capacity=" + capacity + " retained=" + count + "/" + free.length
+				+ " reused=" + reused + " misses=" + misses;
+	}
+}
@@ -0,0 +1,85 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes values of a type as records of a fixed number of bytes, so that
+ * they can be kept off the heap, in a ByteBuffer.
+ * Null values are NOT allowed.
+ *
+ * @param <E> the type of the values encoded
+ */
+public interface Codec<E> {
+
+	/**
+	 * @return The number of bytes of every record.
+	 */
+	int width();
+
+	/**
+	 * Writes the record of a value.
+	 * @param buffer	The buffer to write to.
+	 * @param offset	The position of the first byte of the record.
+	 * @param value		The value.
+	 * @requires offset >= 0 && offset + width() <= buffer.limit() && value!=null
+	 */
+	void write(ByteBuffer buffer, int offset, E value);
+
+	/**
+	 * Reads the value of a record.
+	 * @param buffer	The buffer to read from.
+	 * @param offset	The position of the first byte of the record.
+	 * @requires offset >= 0 && offset + width() <= buffer.limit()
+	 * @return The value whose record starts at offset.
+	 */
+	E read(ByteBuffer buffer, int offset);
+
+	/**
+	 * Codec of Integer, as 4 bytes.
+	 */
+	Codec<Integer> INT = new Codec<Integer>() {
+		public int width() {
+			return Integer.BYTES;
+		}
+
+		public void write(ByteBuffer buffer, int offset, Integer value) {
+			buffer.putInt(offset, value);
+		}
+
+		public Integer read(ByteBuffer buffer, int offset) {
+			return buffer.getInt(offset);
+		}
+	};
+
+	/**
+	 * Codec of Long, as 8 bytes.
+	 */
+	Codec<Long> LONG = new Codec<Long>() {
+		public int width() {
+			return Long.BYTES;
+		}
+
+		public void write(ByteBuffer buffer, int offset, Long value) {
+			buffer.putLong(offset, value);
+		}
+
+		public Long read(ByteBuffer buffer, int offset) {
+			return buffer.getLong(offset);
+		}
+	};
+
+	/**
+	 * Codec of Double, as 8 bytes.
+	 */
+	Codec<Double> DOUBLE = new Codec<Double>() {
+		public int width() {
+			return Double.BYTES;
+		}
+
+		public void write(ByteBuffer buffer, int offset, Double value) {
+			buffer.putDouble(offset, value);
+		}
+
+		public Double read(ByteBuffer buffer, int offset) {
+			return buffer.getDouble(offset);
+		}
+	};
+}
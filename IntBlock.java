@@ -0,0 +1,452 @@
+// Generated by tools/specialize.py from Block.java. Do not edit by hand.
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * A block has a capacity and holds a sequence of ints (in a circular array).  
+ * Blocks are mutable. This is the primitive counterpart of Block, holding
+ * the values themselves instead of references to boxed values.
+ * 
+ * The type Block supports:
+ * (1) the insertion of elements at both end points and also in a given position, 
+ *     provided the block is not full, and 
+ * (2) the removal of elements at both end points and also in a given position, 
+ *     provided the block is not empty.  
+ *   
+ * @see Block
+ */
+public class IntBlock implements Cloneable{
+
+	/* ************ FIELDS ************ */
+
+	/*
+	 * The store.
+	 */
+	private int[] elems;
+
+	/*
+	 * The index of elems where the first element is stored.
+	 */
+	private int indexFirst;	
+
+	/*
+	 * The index of elems where the last element is stored.
+	 */
+	private int indexLast;	
+
+	/*
+	 * Cached total number of elements in the block. 
+	 */
+	private int size;
+
+	/*
+	 * The capacity minus one, if the capacity is a power of two, so that
+	 * positions wrap around with a bit mask. -1 otherwise.
+	 */
+	private final int mask;
+
+
+	/* ************ CONSTRUCTORS  ************ */
+
+	/**
+	 * Constructor for an empty block with a given capacity.
+	 * Blocks whose capacity is a power of two are slightly faster.
+	 * @param capacity	The capacity of the block
+	 * @requires capacity > 0
+	 */
+	public IntBlock(int capacity) {
+		elems = new int[capacity];
+		this.indexFirst = 1 % capacity;
+		this.indexLast = 0;
+		this.size = 0;
+		this.mask = (capacity & (capacity - 1)) == 0 ? capacity - 1 : -1;
+	}
+
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * @return The block's capacity.
+	 */
+	public int capacity() {
+		return elems.length;
+	}
+
+	/**
+	 * @return If this block has no elements.
+	 */
+	public boolean isEmpty () {
+		return size() == 0;
+	}
+	
+	/**
+	 * @return If the number of elements in the block is equals to its capacity.
+	 */
+	public boolean isFull(){
+		return size() == elems.length;
+	}
+
+	/**
+	 * Add an element at the beginning of the block's sequence.
+	 * @param element 	The element to add.
+	 * @requires !isFull()
+	 */
+	public void addFirst(int element) {
+		indexFirst = dec(indexFirst);
+		elems[indexFirst] = element;
+		size++;
+	}
+
+	/**
+	 * Add an element at the end of the block's sequence.
+	 * @param element 	The element to add.
+	 * @requires !isFull()
+	 */
+	public void addLast(int element) {
+		indexLast = inc(indexLast);
+		elems[indexLast] = element;
+		size++;
+	}
+
+	/**
+	 * Inserts the specified element at the specified position in the block's sequence. 
+	 * Shifts the element currently at that position and any subsequent elements 
+	 * to the right (adds one to their indices).
+	 * Only the shorter side of the sequence is moved in the array: either the
+	 * elements before the position, one place back, or the others, one 
+	 * place forward.
+	 * @param element	The element to add.
+	 * @param index		The position where the element should be added.
+	 * @requires !isFull() && 0 <= index && index < size()
+	 */
+	public void add(int index, int element){
+		if (index == 0)
+			//no need to shift elements in this case
+			addFirst(element);
+		else {
+			if (index < size - index) {
+				shiftBack(indexFirst, index);
+				indexFirst = dec(indexFirst);
+			} else {
+				shiftForward(plus(indexFirst, index), size - index);
+				indexLast = inc(indexLast);
+			}
+			elems[plus(indexFirst, index)] = element;
+			size++;
+		}
+	}
+
+	/**
+	 * Removes the element at the specified position in the block's sequence. 
+	 * Shifts the elements at any subsequent elements 
+	 * to the left (subtracts one to their indices).
+	 * Only the shorter side of the sequence is moved in the array.
+	 * @param index The position where the element should be removed.
+	 * @requires 0 <= index && index < size()
+	 */
+	public void remove(int index){
+		if (index == 0)
+			removeFirst();
+		else if (index == size() - 1)
+			removeLast();
+		else {
+			if (index < size - index - 1) {
+				shiftForward(indexFirst, index);
+				indexFirst = inc(indexFirst);
+			} else {
+				shiftBack(plus(indexFirst, index + 1), size - index - 1);
+				indexLast = dec(indexLast);
+			}
+			size--;
+		}
+	}
+
+	/**
+	 * Removes the elements from position from, inclusive, to position to,
+	 * exclusive, in the block's sequence. Shifts any subsequent elements
+	 * to the left (subtracts to-from to their indices).
+	 * Only the shorter side of the sequence is moved in the array.
+	 * @param from The position of the first element to remove.
+	 * @param to The position after the last element to remove.
+	 * @requires 0 <= from && from <= to && to <= size()
+	 */
+	public void removeRange(int from, int to){
+		int count = to - from;
+		if (count == 0)
+			return;
+		if (from < size - to) {
+			for (int i = from - 1; i >= 0; i--)
+				elems[plus(indexFirst, i + count)] = elems[plus(indexFirst, i)];
+			indexFirst = plus(indexFirst, count);
+		} else {
+			for (int i = to; i < size; i++)
+				elems[plus(indexFirst, i - count)] = elems[plus(indexFirst, i)];
+			indexLast = plus(indexLast, elems.length - count);
+		}
+		size -= count;
+	}
+
+	/**
+ 	 * @return The element at the beginning of the block's sequence.	
+	 * @requires !isEmpty()
+	 */
+	public int getFirst() {
+		return elems[indexFirst];
+	}
+
+	/**
+	 * @return The element at the end of this block's sequence.
+	 * @requires !isEmpty()
+	 */
+	public int getLast(){
+		return elems[indexLast];
+	}
+
+	/**
+	 * @return The element at the specified position in the block's sequence. 
+	 * @requires 0 <= index && index < size()
+	 */
+	public int get(int index) {
+		return elems[plus(indexFirst,index)];
+	}
+
+	/**
+	 * Remove the element at the beginning of the block's sequence. 
+	 * @requires !isEmpty()
+	 */
+	public void removeFirst() {
+		indexFirst = inc(indexFirst);
+		size--;
+	}
+
+	/**
+ 	 * Remove the element at the end of the block's sequence. 
+ 	 * @requires !isEmpty()
+	 */
+	public void removeLast() {
+		indexLast = dec(indexLast);
+		size--;
+	}
+
+	/**
+	 * Remove every element of the block, as when it's about to be reused. 
+	 * @ensures isEmpty()
+	 */
+	public void clear() {
+		while (size > 0)
+			removeLast();
+	}
+
+	/**
+	 * Replaces the element at the specified position in the block's sequence 
+ 	 * with the specified element.
+	 * @param index The position of the element to replaced.
+	 * @param element The element 
+	 * @requires 0 <= index && index < size()
+	 */
+	public void set(int index, int element) {
+		elems[plus(indexFirst,index)] = element;	
+	}
+
+	/**
+	 * @return The number of elements in this block.
+	 */
+	public int size() {
+		return  size;
+	}
+
+	/**
+	 * Sorts the block's sequence in place, in ascending order.
+	 * If the sequence wraps around the end of the array, it's first moved
+	 * to the beginning of the array, in place.
+	 */
+	public void sort() {
+		if (size == 0)
+			return;
+		if (indexFirst > indexLast) {
+			//Rotate the array left by indexFirst, with three reversals
+			reverse(0, indexFirst);
+			reverse(indexFirst, elems.length);
+			reverse(0, elems.length);
+			indexFirst = 0;
+			indexLast = size - 1;
+		}
+		Arrays.sort(elems, indexFirst, indexFirst + size);
+	}
+
+	// private matter
+
+	/*
+	 * Reverses the positions of the array from from, inclusive, to to,
+	 * exclusive.
+	 */
+	private void reverse(int from, int to) {
+		for (int i = from, j = to - 1; i < j; i++, j--) {
+			int temp = elems[i];
+			elems[i] = elems[j];
+			elems[j] = temp;
+		}
+	}
+
+	/*
+	 * Arithmetic modulo the capacity of the block, with a mask when the
+	 * capacity is a power of two and without divisions otherwise.
+	 */
+	
+	//@requires 0<=i && i<capacity()
+	private int inc(int i) {
+		if (mask >= 0)
+			return (i + 1) & mask;
+		return i + 1 == elems.length ? 0 : i + 1;
+	}
+	//@requires 0<=i && i<capacity()
+	private  int dec(int i) {
+		if (mask >= 0)
+			return (i - 1) & mask;
+		return i == 0 ? elems.length - 1 : i - 1;
+	}
+
+	//@requires 0<=i && i<capacity() && 0<=j && j<=capacity()
+	private  int plus(int i, int j) {
+		if (mask >= 0)
+			return (i + j) & mask;
+		return i + j >= elems.length ? i + j - elems.length : i + j;
+	}
+
+	/*
+	 * Moves count elements of the array, the first one at position from,
+	 * one place forward, wrapping around. Copies the contiguous segments 
+	 * from the last one to the first.
+	 */
+	private void shiftForward(int from, int count) {
+		if (count == 0)
+			return;
+		int src = plus(from, count - 1);
+		int dst = inc(src);
+		while (count > 0) {
+			int n = Math.min(count, Math.min(src, dst) + 1);
+			System.arraycopy(elems, src - n + 1, elems, dst - n + 1, n);
+			count -= n;
+			src = dec(src - n + 1);
+			dst = dec(dst - n + 1);
+		}
+	}
+
+	/*
+	 * Moves count elements of the array, the first one at position from,
+	 * one place back, wrapping around. Copies the contiguous segments 
+	 * from the first one to the last.
+	 */
+	private void shiftBack(int from, int count) {
+		int src = from;
+		int dst = dec(from);
+		while (count > 0) {
+			int n = Math.min(count, elems.length - Math.max(src, dst));
+			System.arraycopy(elems, src, elems, dst, n);
+			count -= n;
+			src = plus(src, n);
+			dst = plus(dst, n);
+		}
+	}
+
+
+	// clone, equals, toString
+
+	/**
+	 * A faithful copy of this block.
+	 * Clones the backbone (the array) of the block.
+	 */
+	@Override
+	public IntBlock clone() {
+		try {
+			IntBlock result = (IntBlock) super.clone();
+			result.elems = elems.clone();
+			return result;
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e.toString());
+		}
+	}
+
+	/**
+	 * Is this block equal to a given object?
+	 * 
+	 * @param other The object.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		return this == other || other instanceof IntBlock
+				&& equalBlocks((IntBlock) other);
+	}
+
+	/**
+	 * @return A hash code consistent with equals.
+	 */
+	@Override
+	public int hashCode() {
+		int result = capacity();
+		int curr = this.indexFirst;
+		for (int i = 1; i <= size(); i++){
+			result = 31 * result + Integer.hashCode(elems[curr]);
+			curr = inc(curr);
+		}
+		return result;
+	}
+
+	/*
+	 * Are two blocks equals?
+	 * 
+	 * Blocks are equal if have the same capacity and hold the same linear collection
+	 * of elements.
+	 * @param other
+	 *            The other queue.
+	 */
+	private boolean equalBlocks(IntBlock other) {
+		if ( this.capacity() != other.capacity() || this.size() != other.size() ) 
+			return false;
+		int curr = this.indexFirst;
+		int otherCurr = other.indexFirst;
+		for (int i = 1; i <= size(); i++){
+			if (this.elems[curr] != other.elems[otherCurr])
+				return false;
+			curr = inc(curr);
+			otherCurr = inc(otherCurr);
+		}
+		return true;
+	}
+
+	/**
+	 * @return A textual representation of this block 
+	 * with elements separated by commas and inside [ and ].
+	 */
+	@Override
+	public String toString () {
+		StringJoiner result = new StringJoiner (",", "[", "]");
+		if (!isEmpty()) {	
+			int curr = this.indexFirst;
+			for (int i = 1; i <= size(); i++){
+				result.add(String.valueOf(elems[curr]));
+				curr = inc(curr);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @return Textual representation of this block 
+	 * with internal representation of the block.
+	 * Useful for debugging.
+	 */
+	public String toStringForDebugging () {
+		StringJoiner result = new StringJoiner (",", "[", "]");
+		for (int i = 0; i < elems.length; i++){
+			if (i == indexFirst)
+				result.add(" >" + elems[i] + " ");
+			else if (i == indexLast)
+				result.add(elems[i] + "< ");
+			else
+				result.add(String.valueOf(elems[i]));
+		}
+		return result.toString();
+	}
+
+}
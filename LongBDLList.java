@@ -0,0 +1,701 @@
+// Generated by tools/specialize.py from IntBDLList.java. Do not edit by hand.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A list of longs with the same structure and positional API as BDLList:
+ * a doubly linked list of nodes, each holding consecutive elements of the
+ * list in a LongBlock, with a positional index over the nodes.
+ *
+ * Values are stored in long arrays, so neither the list nor its iterators
+ * and streams box them.
+ *
+ * @see BDLList
+ */
+public class LongBDLList implements Iterable<Long>, Cloneable{
+	/*
+	 * A node of the linked list holding consecutive
+	 * elements of the list in a LongBlock.
+	 */
+	private static final class Node extends NodeIndex.Entry<Node>{
+
+		/* *** Fields *** */
+		private LongBlock elem;
+
+		/* *** Constructor *** */
+		/**
+		 * Constructor to a new node.
+		 * @param elem - element
+		 * @param next - next node
+		 * @param prev - previous node
+		 */
+		private Node(LongBlock elem, Node next, Node prev){
+
+			this.elem = elem;
+			this.next = next;
+			this.prev = prev;
+
+		}
+
+		/* *** Methods *** */
+		/**
+		 * Adds the value to the ith position of this node.
+		 * @param i - the position in this node
+		 * @param value - the value
+		 * @requires i >= 0 && i <= size() && !isFull()
+		 * @ensures It adds value to the ith position of this node.
+		 */
+		private void add(int i, long value){
+			if(i == size())
+				elem.addLast(value);
+			else
+				elem.add(i, value);
+		}
+
+		/**
+		 * What's the size of the Block of this node?
+		 * @return The size of the Block of this node.
+		 */
+		@Override
+		int size(){
+			return elem.size();
+		}
+
+		/**
+		 * Is this node full?
+		 * @return true if full, false otherwise.
+		 */
+		private boolean isFull(){
+			return elem.isFull();
+		}
+
+		/**
+		 * Shift one value (last one) recursivly to the right (to the next node)
+		 * from this node until target, and adds a value to the ith position
+		 * in target.
+		 * @param target - the node needing room
+		 * @param i - the position in target
+		 * @param value - the value
+		 * @requires target != null && i >= 0 && i < target.size()
+		 * @ensures It will shift the values accordingly.
+		 */
+		private void shiftr(Node target, int i, long value){
+			if(target == this){
+				add(i, value);
+			} else {
+				elem.addFirst(prev.elem.getLast());
+				prev.elem.removeLast();
+				prev.shiftr(target, i, value);
+			}
+		}
+
+		/**
+		 * Shift values (by order) to the left, from the next node to this one,
+		 * until target, so that every node but target holds bsize elements.
+		 * @param target - the last node to pull values from
+		 * @param bsize - the number of elements each node should hold
+		 * @requires target != null
+		 * @ensures It will shift the values accordingly.
+		 */
+		private void shiftl(Node target, int bsize){
+			if(target != this){
+				while(size()<bsize){
+					elem.addLast(next.elem.getFirst());
+					next.elem.removeFirst();
+				}
+				next.shiftl(target, bsize);
+			}
+		}
+	}
+
+	/* ************ FIELDS ************* */
+	private int size = 0;
+	private Node first;
+	private Node last;
+	//Positional index over the nodes
+	private final NodeIndex<Node> nodes = new NodeIndex<Node>();
+	//Node last returned by lookfor, where the next lookups are likely to land
+	private Node finger;
+	//Position of the first element of finger
+	private int base;
+	//Number of structural modifications, to make iterators fail fast
+	private int modCount = 0;
+
+	/* ********* FINAL FIELDS ********** */
+	private final static int BSIZE = 4;
+	//How many nodes lookfor walks from finger before using the index
+	private final static int REACH = 8;
+	//Number of elements nodes are balanced to, their blocks hold one more
+	private final int bsize;
+
+	/* ********* CONSTRUCTORS ********** */
+
+	/**
+	 * Constructor to an empty list whose blocks hold BSIZE+1 elements.
+	 */
+	public LongBDLList() {
+		this(BSIZE+1);
+	}
+
+	/**
+	 * Constructor to an empty list whose blocks hold a given number of
+	 * elements.
+	 * @param capacity - the capacity of the blocks
+	 * @requires capacity > 1
+	 */
+	public LongBDLList(int capacity) {
+		this.bsize = capacity - 1;
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * What's the capacity of the blocks of this list?
+	 * @return The number of elements each node can hold.
+	 */
+	public int blockCapacity() {
+		return bsize + 1;
+	}
+
+	/**
+	 * Is this list empty?
+	 * @return true if empty, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * What's the current size of this list?
+	 * @return The size of the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * What's the element at the indexth position in the list?
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @ensures It returns the element at the indexth position.
+	 * @return The element at the indexth position.
+	 */
+	public long get(int index) {
+		Node node = lookfor(index);
+		return node.elem.get(index - base);
+	}
+
+	/**
+	 * Set the indexth position in the list to a given value.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index < size()
+	 * @ensures It sets the indexth position to value.
+	 */
+	public void set(int index, long value) {
+		Node node = lookfor(index);
+		node.elem.set(index - base, value);
+	}
+
+	/**
+	 * Add value to the end of the list.
+	 * @param value - the value
+	 * @ensures It will add value to the end of the list.
+	 */
+	public void add(long value) {
+		if(isEmpty()) { //empty
+			first = new Node(new LongBlock(bsize+1), null, null);
+			last = first;
+			finger = null;
+			nodes.clear();
+			nodes.insertAfter(null, first);
+		} else if(last.isFull()) { //Last node is full
+			//The old last node is about to become an inner node
+			nodes.sync(last);
+			last.next = new Node(new LongBlock(bsize+1), null, last);
+			nodes.insertAfter(last, last.next);
+			last = last.next;
+		}
+		last.elem.addLast(value);
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Add an element to the indexth position in the list.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index < size()
+	 * @ensures It adds value to the indexth position.
+	 */
+	public void add(int index, long value) {
+		if(isEmpty()){ //empty, just add it to the first position
+			add(value);
+			return;
+		}
+		Node currNode = lookfor(index); //Node containing index
+		int nodeBase = base;
+		int i = index - base; //Position of index inside currNode
+		if(currNode.isFull()){ //It's already full
+			Node target = lookforEmpty(currNode);
+			if(target == null){ //End of the list
+				nodes.sync(last);
+				last.next = new Node(new LongBlock(bsize+1), null, last);
+				nodes.insertAfter(last, last.next);
+				last = last.next;
+				last.shiftr(currNode, i, value);
+				target = last;
+			} else if (target.isFull()) { //Didn't find any not full.
+				Node newNode = new Node(new LongBlock(bsize+1), currNode.next,
+																currNode);
+				newNode.next.prev = newNode;
+				currNode.next = newNode;
+				nodes.insertAfter(currNode, newNode);
+				newNode.shiftr(currNode, i, value);
+				newNode.shiftl(target, bsize);
+			} else { //Found a node that isn't full
+				target.shiftr(currNode, i, value);
+			}
+			//Let the index know about the new sizes of the touched nodes
+			for(Node node = currNode; node != target.next; node = node.next)
+				nodes.sync(node);
+		} else { //It isn't full
+			currNode.add(i, value);
+			nodes.sync(currNode);
+		}
+		size++;
+		modCount++;
+		finger = currNode;
+		base = nodeBase;
+	}
+
+	/**
+	 * Add every value of an array to the end of the list.
+	 * The last node is filled up and the other values are packed in new
+	 * nodes, which are linked at once.
+	 * @param values - the values
+	 * @requires values != null
+	 * @ensures It adds every value of values to the end of the list.
+	 */
+	public void addAll(long[] values) {
+		if(values.length == 0)
+			return;
+		int k = 0;
+		if(!isEmpty()){
+			while(k < values.length && !last.isFull())
+				last.elem.addLast(values[k++]);
+		}
+		if(k < values.length){
+			int capacity = bsize + 1;
+			int count = (values.length - k + capacity - 1) / capacity;
+			Node head = null;
+			Node tail = null;
+			for(int j = 0; j < count; j++){
+				int share = (values.length - k) / (count - j);
+				Node node = new Node(new LongBlock(capacity), null, tail);
+				for(int end = k + share; k < end; k++)
+					node.elem.addLast(values[k]);
+				if(tail == null)
+					head = node;
+				else
+					tail.next = node;
+				tail = node;
+			}
+			if(isEmpty()){
+				first = head;
+				finger = null;
+				nodes.clear();
+			} else {
+				nodes.sync(last);
+				last.next = head;
+				head.prev = last;
+			}
+			last = tail;
+			nodes.insertChain(head, tail);
+		}
+		size += values.length;
+		modCount++;
+	}
+
+	/**
+	 * Remove the element at the indexth position in the list.
+	 * An inner node left with less than half its elements is merged with
+	 * a neighbour, if they fit in a single node, or borrows one element from
+	 * it otherwise.
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @ensures It removes the element at the indexth position, the elements
+	 * after it move one position to the left.
+	 * @return The removed element.
+	 */
+	public long remove(int index) {
+		Node node = lookfor(index);
+		int nodeBase = base;
+		long result = node.elem.get(index - base);
+		node.elem.remove(index - base);
+		size--;
+		modCount++;
+		if(node.size() == 0){
+			Node next = node.next;
+			unlink(node);
+			finger = next;
+		} else if(node != first && node != last){
+			if(node.size() < Math.max(1, bsize / 2)){ //Underflow
+				Node prev = node.prev;
+				Node next = node.next;
+				if(prev.size() + node.size() <= bsize){ //Merge into prev
+					base = nodeBase - prev.size();
+					finger = prev;
+					while(node.size() > 0){
+						prev.elem.addLast(node.elem.getFirst());
+						node.elem.removeFirst();
+					}
+					unlink(node);
+					nodes.sync(prev);
+					return result;
+				} else if(next.size() + node.size() <= bsize){ //Merge into next
+					finger = next;
+					while(node.size() > 0){
+						next.elem.addFirst(node.elem.getLast());
+						node.elem.removeLast();
+					}
+					unlink(node);
+					nodes.sync(next);
+					return result;
+				} else if(prev.size() > next.size()){ //Borrow from prev
+					base = nodeBase - 1;
+					node.elem.addFirst(prev.elem.getLast());
+					prev.elem.removeLast();
+					nodes.sync(prev);
+				} else { //Borrow from next
+					node.elem.addLast(next.elem.getFirst());
+					next.elem.removeFirst();
+					nodes.sync(next);
+				}
+			}
+			nodes.sync(node);
+		}
+		return result;
+	}
+
+	/**
+	 * Remove the first element of the list.
+	 * @throws NoSuchElementException if the list is empty
+	 * @return The removed element.
+	 */
+	public long removeFirst() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		long result = first.elem.getFirst();
+		first.elem.removeFirst();
+		size--;
+		modCount++;
+		//Every position after the first node moved
+		if(finger != first)
+			base--;
+		if(first.size() == 0)
+			unlink(first);
+		return result;
+	}
+
+	/**
+	 * Remove the last element of the list.
+	 * @throws NoSuchElementException if the list is empty
+	 * @return The removed element.
+	 */
+	public long removeLast() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		long result = last.elem.getLast();
+		last.elem.removeLast();
+		size--;
+		modCount++;
+		if(last.size() == 0)
+			unlink(last);
+		return result;
+	}
+
+	/**
+	 * Remove every element of the list.
+	 * @ensures isEmpty()
+	 */
+	public void clear() {
+		first = null;
+		last = null;
+		finger = null;
+		nodes.clear();
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Drops a node from the list.
+	 * @param node - the node
+	 * @requires node belongs to this list
+	 * @ensures node no longer belongs to the list.
+	 */
+	private void unlink(Node node) {
+		nodes.remove(node);
+		if(finger == node)
+			finger = null;
+		if(node.prev == null)
+			first = node.next;
+		else
+			node.prev.next = node.next;
+		if(node.next == null)
+			last = node.prev;
+		else
+			node.next.prev = node.prev;
+		node.next = null;
+		node.prev = null;
+	}
+
+	/**
+	 * What's the node holding the indexth position?
+	 * Positions up to REACH nodes away from the finger are found by walking
+	 * from it, the end nodes are found directly, any other through the index.
+	 * @param index - the position
+	 * @requires index >= 0 && index < size()
+	 * @ensures It returns the node holding the indexth position, which
+	 * becomes the finger, and base becomes the position of its first element.
+	 * @return The node holding the indexth position.
+	 */
+	private Node lookfor(int index){
+		Node result = finger;
+		if(result != null){
+			int b = base;
+			if(index >= b){ //Walk forward
+				for(int i = 0; i < REACH && index >= b + result.size(); i++){
+					b += result.size();
+					result = result.next;
+				}
+			} else { //Walk backward
+				for(int i = 0; i < REACH && index < b; i++){
+					result = result.prev;
+					b -= result.size();
+				}
+			}
+			if(b <= index && index < b + result.size()){
+				finger = result;
+				base = b;
+				return result;
+			}
+		}
+		int tail = size - last.size();
+		if(index < first.size()){
+			result = first;
+			base = 0;
+		} else if(index >= tail){
+			result = last;
+			base = tail;
+		} else {
+			//The index may not know about the latest elements of the first
+			//node
+			int lag = nodes.lag(first);
+			result = nodes.find(index - lag);
+			base = nodes.base() + lag;
+		}
+		finger = result;
+		return result;
+	}
+
+	/**
+	 * What's the first not full node, at a distance of bsize from curr?
+	 * The distance is never more than BSIZE.
+	 * @param curr - the node to start the search from
+	 * @requires curr != null
+	 * @return null if didn't find any not full nodes at that distance,
+	 * Or the last node that it searched for. If that node is full, didn't find
+	 * any, if it's not, it found.
+	 */
+	private Node lookforEmpty(Node curr) {
+		Node result = curr;
+		int distance = Math.min(bsize, BSIZE);
+		for(int i = 1; i <= distance && result != null && result.isFull(); i++)
+			result = result.next;
+		return result;
+	}
+
+	/**
+	 * The elements of the list, in order, in a new array.
+	 * @return An array holding every element of the list.
+	 */
+	public long[] toArray() {
+		long[] result = new long[size];
+		int k = 0;
+		for(Node node = first; node != null; node = node.next)
+			for(int i = 0; i < node.size(); i++)
+				result[k++] = node.elem.get(i);
+		return result;
+	}
+
+	/**
+	 * A faithful copy of this list.
+	 * Clones every block, node by node, so the copy shares nothing with this
+	 * list, and builds the index of the copy once at the end.
+	 */
+	@Override
+	public LongBDLList clone() {
+		LongBDLList result = new LongBDLList(bsize + 1);
+		Node tail = null;
+		for(Node node = first; node != null; node = node.next){
+			Node copy = new Node(node.elem.clone(), null, tail);
+			if(tail == null)
+				result.first = copy;
+			else
+				tail.next = copy;
+			tail = copy;
+		}
+		if(tail != null){
+			result.last = tail;
+			result.nodes.insertChain(result.first, result.last);
+		}
+		result.size = size;
+		return result;
+	}
+
+	/**
+	 * Writes the list to a channel, a block at a time, in the format of
+	 * BDLListFormat, with no boxing.
+	 * @param channel - the channel
+	 * @throws IOException if the channel fails or the blocks hold more than
+	 * BDLListFormat.MAX_CAPACITY elements
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = BDLListFormat.buffer(Long.BYTES);
+		BDLListFormat.writeHeader(buffer, Long.BYTES, bsize + 1, size);
+		for(Node node = first; node != null; node = node.next){
+			int count = node.size();
+			BDLListFormat.reserve(channel, buffer, Integer.BYTES);
+			buffer.putInt(count);
+			for(int i = 0; i < count; i++){
+				BDLListFormat.reserve(channel, buffer, Long.BYTES);
+				buffer.putLong(node.elem.get(i));
+			}
+		}
+		BDLListFormat.flush(channel, buffer);
+	}
+
+	/**
+	 * Reads a list written by write from a channel.
+	 * Values are read straight into full nodes, whatever the runs they were
+	 * written in, and the index is built once at the end.
+	 * @param channel - the channel
+	 * @throws IOException if the channel fails or ends before the list, or
+	 * doesn't hold a list of this type
+	 * @return The list read, with the capacity of the blocks it was
+	 * written with.
+	 */
+	public static LongBDLList read(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buffer = BDLListFormat.buffer(Long.BYTES);
+		buffer.flip();
+		int[] header = BDLListFormat.readHeader(channel, buffer, Long.BYTES);
+		LongBDLList result = new LongBDLList(header[0]);
+		Node tail = null;
+		for(int remaining = header[1]; remaining > 0;){
+			BDLListFormat.require(channel, buffer, Integer.BYTES);
+			int count = buffer.getInt();
+			BDLListFormat.checkRun(count, header[0], remaining);
+			for(int i = 0; i < count; i++){
+				BDLListFormat.require(channel, buffer, Long.BYTES);
+				if(tail == null || tail.isFull()){
+					Node node = new Node(new LongBlock(header[0]), null, tail);
+					if(tail == null)
+						result.first = node;
+					else
+						tail.next = node;
+					tail = node;
+				}
+				tail.elem.addLast(buffer.getLong());
+			}
+			remaining -= count;
+		}
+		if(tail != null){
+			result.last = tail;
+			result.nodes.insertChain(result.first, result.last);
+		}
+		result.size = header[1];
+		return result;
+	}
+
+	/**
+	 * Contextual representation of LongBDLList
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		PrimitiveIterator.OfLong it = iterator();
+		while(it.hasNext()){
+			result.append(it.nextLong());
+			if(it.hasNext())
+				result.append(", ");
+		}
+		result.append("]");
+		return result.toString();
+	}
+
+	/**
+	 * A custom iterator class that traverses the elements of this list,
+	 * keeping the node holding the next element and the position of that
+	 * element inside the node's block.
+	 */
+	private final class LongBDLListIterator implements PrimitiveIterator.OfLong {
+		//Node holding the next element, null at the end of the list
+		private Node node = first;
+		//Position of the next element inside node
+		private int offset = 0;
+		private final int expectedModCount = modCount;
+
+		/**
+		 * Does it have another value?
+		 */
+		@Override
+		public boolean hasNext() {
+			return node != null;
+		}
+
+		/**
+		 * Next value, not boxed.
+		 */
+		@Override
+		public long nextLong() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (node == null)
+				throw new NoSuchElementException();
+			long result = node.elem.get(offset);
+			offset++;
+			if(offset == node.size()){
+				node = node.next;
+				offset = 0;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * An iterator for the elements in the LongBDLList.
+	 */
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		return new LongBDLListIterator();
+	}
+
+	/**
+	 * A sequential stream over the elements in the LongBDLList.
+	 * @return A stream of the elements of this list, not boxed.
+	 */
+	public LongStream stream() {
+		return StreamSupport.longStream(Spliterators.spliterator(iterator(),
+				size, Spliterator.ORDERED), false);
+	}
+}
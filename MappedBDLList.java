@@ -0,0 +1,572 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A BDLList of fixed-width records whose blocks live off the heap, in a file
+ * mapped in memory, so that lists far larger than the heap cost little more
+ * than their index on it, and survive the process.
+ *
+ * The file starts with a header and then holds slots, each one with the
+ * links of a node to the next and previous ones and a MappedBlock. Slots are
+ * allocated at the end of the file, which is mapped in segments twice as
+ * large as the previous one, from MIN_SEGMENT up to SEGMENT bytes, and
+ * reused once free. Opening a file only reads the links
+ * of its slots to rebuild the positional index, never the records.
+ *
+ * A node splits in two when an element is added to it while full, and is
+ * dropped when empty. A node left less than half full by a remove is merged
+ * with a neighbour, if they fit in a single block, or borrows an element
+ * from it otherwise, as in BDLList, so blocks stay at least half full and
+ * the slots of the file are freed for reuse as the list shrinks.
+ *
+ * @param <T> the type of the elements
+ */
+public class MappedBDLList<T> implements Iterable<T>, Closeable{
+	/*
+	 * A node of the linked list, holding the block of a slot of the file.
+	 */
+	private static final class Node<T> extends NodeIndex.Entry<Node<T>>{
+
+		/* *** Fields *** */
+		private final int slot;
+		private final MappedBlock<T> elem;
+
+		/* *** Constructor *** */
+		/**
+		 * Constructor to a node over a slot.
+		 * @param slot - the number of the slot
+		 * @param elem - the block of the slot
+		 */
+		private Node(int slot, MappedBlock<T> elem){
+			this.slot = slot;
+			this.elem = elem;
+		}
+
+		/* *** Methods *** */
+		/**
+		 * What's the size of the Block of this node?
+		 * @return The size of the Block of this node.
+		 */
+		@Override
+		int size(){
+			return elem.size();
+		}
+	}
+
+	/* ************ FIELDS ************* */
+	private Node<T> first;
+	private Node<T> last;
+	//Positional index over the nodes, the weight of last may lag behind
+	private final NodeIndex<Node<T>> nodes = new NodeIndex<Node<T>>();
+	//Position of the first element of the node last returned by lookfor
+	private int base;
+	//Number of structural modifications, to make iterators fail fast
+	private int modCount = 0;
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private final ArrayList<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	//Number of the first slot of each segment
+	private final ArrayList<Integer> starts = new ArrayList<Integer>();
+	//Number of slots mapped
+	private int mapped = 0;
+
+	/* ********* FINAL FIELDS ********** */
+	private final static int MAGIC = 0x42444C4C;
+	//Bytes of the header of the file: magic number, width of the records,
+	//capacity of the blocks, slots allocated, first free slot, first and
+	//last slots of the list and size
+	private final static int HEADER = 32;
+	private final static int WIDTH = 4, CAPACITY = 8, SLOTS = 12, FREE = 16,
+			FIRST = 20, LAST = 24, SIZE = 28;
+	//Bytes of the links of a slot, before its block
+	private final static int LINKS = 8;
+	//Smallest and largest number of bytes mapped at once
+	private final static int MIN_SEGMENT = 1 << 20;
+	private final static int SEGMENT = 1 << 30;
+	private final static int NONE = -1;
+	private final Codec<T> codec;
+	private final int capacity;
+	private final int slotBytes;
+
+	/* ********* CONSTRUCTORS ********** */
+
+	/**
+	 * Constructor to the list stored in a file, which is created empty if
+	 * it doesn't exist or is empty.
+	 * @param file - the file
+	 * @param codec - the codec of the elements
+	 * @param capacity - the capacity of the blocks, ignored if the file
+	 * already holds a list
+	 * @requires capacity > 1 && codec.width() > 0
+	 * @throws IOException if the file can't be opened or mapped, or holds
+	 * something else than a list of records of codec.width() bytes
+	 */
+	public MappedBDLList(Path file, Codec<T> codec, int capacity) throws IOException {
+		this.codec = codec;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			boolean empty = channel.size() == 0;
+			this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+			if(empty){
+				header.putInt(0, MAGIC);
+				header.putInt(WIDTH, codec.width());
+				header.putInt(CAPACITY, capacity);
+				header.putInt(SLOTS, 0);
+				header.putInt(FREE, NONE);
+				header.putInt(FIRST, NONE);
+				header.putInt(LAST, NONE);
+				header.putInt(SIZE, 0);
+			} else if(header.getInt(0) != MAGIC || header.getInt(WIDTH) != codec.width()){
+				throw new IOException(file + " holds no list of " + codec.width()
+						+ " byte records");
+			}
+			this.capacity = header.getInt(CAPACITY);
+			long bytes = LINKS + MappedBlock.bytes(this.capacity, codec.width());
+			if(bytes > SEGMENT)
+				throw new IOException("blocks of " + bytes + " bytes don't fit a segment");
+			this.slotBytes = (int) bytes;
+			while(mapped < header.getInt(SLOTS))
+				map();
+			load();
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * What's the capacity of the blocks of this list?
+	 * @return The number of elements each node can hold.
+	 */
+	public int blockCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Is this list empty?
+	 * @return true if empty, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * What's the current size of this list?
+	 * @return The size of the list.
+	 */
+	public int size() {
+		return header.getInt(SIZE);
+	}
+
+	/**
+	 * What's the element at the indexth position in the list?
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @ensures It returns the element at the indexth position.
+	 * @return The element at the indexth position.
+	 */
+	public T get(int index) {
+		Node<T> node = lookfor(index);
+		return node.elem.get(index - base);
+	}
+
+	/**
+	 * Set the indexth position in the list to a given value.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index < size() && value != null
+	 * @ensures It sets the indexth position to value.
+	 */
+	public void set(int index, T value) {
+		Node<T> node = lookfor(index);
+		node.elem.set(index - base, value);
+	}
+
+	/**
+	 * Add value to the end of the list.
+	 * @param value - the value
+	 * @requires value != null
+	 * @ensures It will add value to the end of the list.
+	 */
+	public void add(T value) {
+		if(last == null || last.elem.isFull())
+			link(last, allocate());
+		//The index catches up on last only when it stops being the last node
+		last.elem.addLast(value);
+		setSize(size() + 1);
+		modCount++;
+	}
+
+	/**
+	 * Add an element to the indexth position in the list.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index <= size() && value != null
+	 * @ensures It adds value to the indexth position.
+	 */
+	public void add(int index, T value) {
+		if(index == size()){
+			add(value);
+			return;
+		}
+		Node<T> node = lookfor(index);
+		int i = index - base;
+		if(node.elem.isFull()){
+			//Split node, moving its second half to a new node after it
+			Node<T> right = allocate();
+			node.elem.moveLast(capacity / 2, right.elem);
+			link(node, right);
+			touch(node);
+			if(i > node.size()){
+				i -= node.size();
+				node = right;
+			}
+		}
+		node.elem.add(i, value);
+		touch(node);
+		setSize(size() + 1);
+		modCount++;
+	}
+
+	/**
+	 * Remove the element at the indexth position in the list.
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @ensures It removes the element at the indexth position, the elements
+	 * after it move one position to the left.
+	 * @return The removed element.
+	 */
+	public T remove(int index) {
+		Node<T> node = lookfor(index);
+		int i = index - base;
+		T result = node.elem.get(i);
+		node.elem.remove(i);
+		setSize(size() - 1);
+		modCount++;
+		if(node.size() == 0){
+			unlink(node);
+			return result;
+		}
+		Node<T> prev = node.prev;
+		Node<T> next = node.next;
+		if(node.size() < capacity / 2 && (prev != null || next != null)){ //Underflow
+			if(prev != null && prev.size() + node.size() <= capacity){
+				//Merge prev into node, the records only move one way
+				prev.elem.moveLast(prev.size(), node.elem);
+				unlink(prev);
+			} else if(next != null && next.size() + node.size() <= capacity){
+				//Merge node into next
+				node.elem.moveLast(node.size(), next.elem);
+				unlink(node);
+				touch(next);
+				return result;
+			} else if(next == null || prev != null && prev.size() > next.size()){
+				//Borrow from prev
+				prev.elem.moveLast(1, node.elem);
+				touch(prev);
+			} else { //Borrow from next
+				next.elem.moveFirst(1, node.elem);
+				touch(next);
+			}
+		}
+		touch(node);
+		return result;
+	}
+
+	/**
+	 * Remove every element of the list, keeping the file as large as it is.
+	 * @ensures isEmpty()
+	 */
+	public void clear() {
+		header.putInt(SLOTS, 0);
+		header.putInt(FREE, NONE);
+		header.putInt(FIRST, NONE);
+		header.putInt(LAST, NONE);
+		setSize(0);
+		first = null;
+		last = null;
+		nodes.clear();
+		modCount++;
+	}
+
+	/**
+	 * Writes every change to the file.
+	 */
+	public void force() {
+		header.force();
+		for(MappedByteBuffer segment: segments)
+			segment.force();
+	}
+
+	/**
+	 * Writes every change to the file and closes it. The list can't be
+	 * used afterwards.
+	 * @throws IOException if the file can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	/**
+	 * Contextual representation of MappedBDLList
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		for(T e: this){
+			result.append(e+", ");
+		}
+		if(!isEmpty())
+			result.delete(result.length()-2, result.length());
+		result.append("]");
+		return result.toString();
+	}
+
+	/**
+	 * Iterator over the elements of the list, from the first to the last.
+	 * @return An iterator over the list.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private Node<T> node = first;
+			private int offset = 0;
+			private final int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return node != null;
+			}
+
+			@Override
+			public T next() {
+				if(modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				if(node == null)
+					throw new NoSuchElementException();
+				T result = node.elem.get(offset++);
+				if(offset == node.size()){
+					node = node.next;
+					offset = 0;
+				}
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * What's the node holding the indexth position?
+	 * The last node is found directly, any other through the index.
+	 * @param index - the position
+	 * @requires index >= 0 && index < size()
+	 * @ensures base becomes the position of the first element of the node.
+	 * @return The node holding the indexth position.
+	 */
+	private Node<T> lookfor(int index) {
+		int lastBase = size() - last.size();
+		if(index >= lastBase){
+			base = lastBase;
+			return last;
+		}
+		Node<T> result = nodes.find(index);
+		base = nodes.base();
+		return result;
+	}
+
+	/**
+	 * Makes the index aware of the size of a node, unless it's the last one.
+	 * @param node - the node
+	 */
+	private void touch(Node<T> node) {
+		if(node != last)
+			nodes.sync(node);
+	}
+
+	/**
+	 * Links a node right after another one, in the file and in the index.
+	 * @param prev - the node that will precede node, or null if node is
+	 * to be the first one
+	 * @param node - the node
+	 * @requires node belongs to no list
+	 */
+	private void link(Node<T> prev, Node<T> node) {
+		if(prev == last && last != null)
+			nodes.sync(last);
+		Node<T> next = prev == null ? first : prev.next;
+		node.prev = prev;
+		node.next = next;
+		if(prev == null)
+			first = node;
+		else
+			prev.next = node;
+		if(next == null)
+			last = node;
+		else
+			next.prev = node;
+		writeLinks(node);
+		if(prev != null)
+			writeLinks(prev);
+		if(next != null)
+			writeLinks(next);
+		nodes.insertAfter(prev, node);
+	}
+
+	/**
+	 * Unlinks a node, in the file and in the index, and frees its slot.
+	 * @param node - the node
+	 * @requires node belongs to this list
+	 */
+	private void unlink(Node<T> node) {
+		nodes.remove(node);
+		Node<T> prev = node.prev;
+		Node<T> next = node.next;
+		if(prev == null)
+			first = next;
+		else
+			prev.next = next;
+		if(next == null)
+			last = prev;
+		else
+			next.prev = prev;
+		if(prev != null)
+			writeLinks(prev);
+		if(next != null)
+			writeLinks(next);
+		header.putInt(FIRST, first == null ? NONE : first.slot);
+		header.putInt(LAST, last == null ? NONE : last.slot);
+		//Push the slot on the list of free slots
+		buffer(node.slot).putInt(offset(node.slot), header.getInt(FREE));
+		header.putInt(FREE, node.slot);
+	}
+
+	/**
+	 * Writes the links of a node to its slot, and to the header if it's
+	 * an end node.
+	 * @param node - the node
+	 */
+	private void writeLinks(Node<T> node) {
+		ByteBuffer buffer = buffer(node.slot);
+		int offset = offset(node.slot);
+		buffer.putInt(offset, node.next == null ? NONE : node.next.slot);
+		buffer.putInt(offset + 4, node.prev == null ? NONE : node.prev.slot);
+		if(node == first)
+			header.putInt(FIRST, node.slot);
+		if(node == last)
+			header.putInt(LAST, node.slot);
+	}
+
+	/**
+	 * A new node over an empty slot, reusing a free one if there is any.
+	 * @return The new node.
+	 */
+	private Node<T> allocate() {
+		int slot = header.getInt(FREE);
+		if(slot != NONE){
+			header.putInt(FREE, buffer(slot).getInt(offset(slot)));
+		} else {
+			slot = header.getInt(SLOTS);
+			if(slot == Integer.MAX_VALUE)
+				throw new IllegalStateException("no more slots");
+			if(slot == mapped)
+				map();
+			header.putInt(SLOTS, slot + 1);
+		}
+		Node<T> result = node(slot);
+		result.elem.clear();
+		return result;
+	}
+
+	/**
+	 * The node over a slot.
+	 * @param slot - the number of the slot
+	 * @return A node whose block is the one of the slot.
+	 */
+	private Node<T> node(int slot) {
+		return new Node<T>(slot, new MappedBlock<T>(buffer(slot),
+				offset(slot) + LINKS, capacity, codec));
+	}
+
+	private ByteBuffer buffer(int slot) {
+		return segments.get(segment(slot));
+	}
+
+	private int offset(int slot) {
+		return (slot - starts.get(segment(slot))) * slotBytes;
+	}
+
+	/**
+	 * What's the segment holding a slot?
+	 * @param slot - the number of the slot
+	 * @requires slot >= 0 && slot < mapped
+	 * @return The position of the segment in segments.
+	 */
+	private int segment(int slot) {
+		int low = 0;
+		int high = starts.size() - 1;
+		while(low < high){
+			int mid = (low + high + 1) >>> 1;
+			if(starts.get(mid) <= slot)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+	private void setSize(int size) {
+		header.putInt(SIZE, size);
+	}
+
+	/**
+	 * Maps one more segment of the file, growing it if needed.
+	 * @throws UncheckedIOException if the file can't be mapped
+	 */
+	private void map() {
+		long bytes = Math.min((long) MIN_SEGMENT << Math.min(segments.size(), 10), SEGMENT);
+		int slots = (int) Math.max(1, Math.min(bytes / slotBytes, Integer.MAX_VALUE - mapped));
+		long position = HEADER + (long) mapped * slotBytes;
+		try {
+			segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position,
+					(long) slots * slotBytes));
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		starts.add(mapped);
+		mapped += slots;
+	}
+
+	/**
+	 * Rebuilds the chain of nodes and the index from the links in the file.
+	 */
+	private void load() {
+		Node<T> prev = null;
+		for(int slot = header.getInt(FIRST); slot != NONE;
+				slot = buffer(slot).getInt(offset(slot))){
+			Node<T> node = node(slot);
+			node.prev = prev;
+			if(prev == null)
+				first = node;
+			else
+				prev.next = node;
+			prev = node;
+		}
+		last = prev;
+		if(first != null)
+			nodes.insertChain(first, last);
+	}
+}
@@ -0,0 +1,314 @@
+import java.nio.ByteBuffer;
+import java.util.StringJoiner;
+
+/**
+ * A block of fixed-width records kept off the heap, in a slot of a
+ * ByteBuffer, usually a MappedByteBuffer over a file.
+ * Like Block, it has a capacity and holds a sequence of elements in a
+ * circular array, and supports the insertion and the removal of elements
+ * at both end points and in a given position. Elements are encoded by a
+ * Codec, and null values are NOT allowed.
+ *
+ * The state of the block lives in its slot too, so that a block can be
+ * dropped and created again over the same slot, as when the file is
+ * opened again. The slot holds the index of the first record (4 bytes),
+ * the size (4 bytes) and then capacity records.
+ *
+ * @param <E> the type of the elements in this block
+ */
+public class MappedBlock<E> {
+
+	/* ************ FIELDS ************ */
+
+	/*
+	 * Bytes before the first record of a slot.
+	 */
+	static final int HEADER = 8;
+
+	/*
+	 * The store, and the position of the slot of this block in it.
+	 */
+	private final ByteBuffer buffer;
+	private final int offset;
+
+	/*
+	 * The number of records of the slot.
+	 */
+	private final int capacity;
+
+	private final Codec<E> codec;
+
+	/*
+	 * The number of bytes of every record.
+	 */
+	private final int width;
+
+
+	/* ************ CONSTRUCTORS  ************ */
+
+	/**
+	 * Constructor for a block over an existing slot of a buffer, with the
+	 * elements the slot already holds.
+	 * @param buffer	The buffer.
+	 * @param offset	The position of the slot in buffer.
+	 * @param capacity	The capacity of the block.
+	 * @param codec		The codec of the elements.
+	 * @requires capacity > 0 && offset >= 0 &&
+	 * offset + bytes(capacity, codec.width()) <= buffer.limit()
+	 */
+	public MappedBlock(ByteBuffer buffer, int offset, int capacity, Codec<E> codec) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.capacity = capacity;
+		this.codec = codec;
+		this.width = codec.width();
+	}
+
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * @param capacity	The capacity of the block.
+	 * @param width		The number of bytes of every record.
+	 * @return The number of bytes of the slot of a block.
+	 */
+	public static long bytes(int capacity, int width) {
+		return HEADER + (long) capacity * width;
+	}
+
+	/**
+	 * Makes the block empty, as a block over a new slot should be.
+	 */
+	public void clear() {
+		buffer.putInt(offset, 0);
+		buffer.putInt(offset + 4, 0);
+	}
+
+	/**
+	 * @return The block's capacity.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return If this block has no elements.
+	 */
+	public boolean isEmpty () {
+		return size() == 0;
+	}
+
+	/**
+	 * @return If the number of elements in the block is equals to its capacity.
+	 */
+	public boolean isFull(){
+		return size() == capacity;
+	}
+
+	/**
+	 * @return The number of elements in this block.
+	 */
+	public int size() {
+		return buffer.getInt(offset + 4);
+	}
+
+	/**
+	 * Add an element at the beginning of the block's sequence.
+	 * @param element 	The element to add.
+	 * @requires !isFull() && element!=null
+	 */
+	public void addFirst(E element) {
+		setFirst(dec(first()));
+		setSize(size() + 1);
+		codec.write(buffer, record(0), element);
+	}
+
+	/**
+	 * Add an element at the end of the block's sequence.
+	 * @param element 	The element to add.
+	 * @requires !isFull() && element!=null
+	 */
+	public void addLast(E element) {
+		int size = size();
+		setSize(size + 1);
+		codec.write(buffer, record(size), element);
+	}
+
+	/**
+	 * Inserts the specified element at the specified position in the block's sequence.
+	 * Shifts the element currently at that position and any subsequent elements
+	 * to the right (adds one to their indices).
+	 * Only the shorter side of the sequence is moved in the slot.
+	 * @param element	The element to add.
+	 * @param index		The position where the element should be added.
+	 * @requires !isFull() && 0 <= index && index <= size() && element!=null
+	 */
+	public void add(int index, E element){
+		int size = size();
+		if (index < size - index) {
+			setFirst(dec(first()));
+			for (int i = 0; i < index; i++)
+				copy(buffer, record(i + 1), buffer, record(i));
+		} else {
+			for (int i = size; i > index; i--)
+				copy(buffer, record(i - 1), buffer, record(i));
+		}
+		setSize(size + 1);
+		codec.write(buffer, record(index), element);
+	}
+
+	/**
+	 * Removes the element at the specified position in the block's sequence.
+	 * Shifts the elements at any subsequent elements
+	 * to the left (subtracts one to their indices).
+	 * Only the shorter side of the sequence is moved in the slot.
+	 * @param index The position where the element should be removed.
+	 * @requires 0 <= index && index < size()
+	 */
+	public void remove(int index){
+		int size = size();
+		if (index < size - index - 1) {
+			for (int i = index; i > 0; i--)
+				copy(buffer, record(i - 1), buffer, record(i));
+			setFirst(inc(first()));
+		} else {
+			for (int i = index; i < size - 1; i++)
+				copy(buffer, record(i + 1), buffer, record(i));
+		}
+		setSize(size - 1);
+	}
+
+	/**
+	 * Remove the element at the beginning of the block's sequence.
+	 * @requires !isEmpty()
+	 */
+	public void removeFirst() {
+		setFirst(inc(first()));
+		setSize(size() - 1);
+	}
+
+	/**
+ 	 * Remove the element at the end of the block's sequence.
+ 	 * @requires !isEmpty()
+	 */
+	public void removeLast() {
+		setSize(size() - 1);
+	}
+
+	/**
+	 * @return The element at the specified position in the block's sequence.
+	 * @requires 0 <= index && index < size()
+	 */
+	public E get(int index) {
+		return codec.read(buffer, record(index));
+	}
+
+	/**
+	 * Replaces the element at the specified position in the block's sequence
+ 	 * with the specified element.
+	 * @param index The position of the element to replaced.
+	 * @param element The element
+	 * @requires 0 <= index && index < size() && element!=null
+	 */
+	public void set(int index, E element) {
+		codec.write(buffer, record(index), element);
+	}
+
+	/**
+	 * Moves the last elements of this block to the beginning of another
+	 * one, copying their records as they are, without decoding them.
+	 * @param count	The number of elements to move.
+	 * @param other	The block receiving them.
+	 * @requires 0 <= count && count <= size() &&
+	 * other.size() + count <= other.capacity() && other.codec == codec
+	 */
+	public void moveLast(int count, MappedBlock<E> other) {
+		int size = size();
+		for (int i = 0; i < count; i++) {
+			other.setFirst(other.dec(other.first()));
+			other.setSize(other.size() + 1);
+			copy(buffer, record(size - 1 - i), other.buffer, other.record(0));
+		}
+		setSize(size - count);
+	}
+
+	/**
+	 * Moves the first elements of this block to the end of another one,
+	 * copying their records as they are, without decoding them.
+	 * @param count	The number of elements to move.
+	 * @param other	The block receiving them.
+	 * @requires 0 <= count && count <= size() &&
+	 * other.size() + count <= other.capacity() && other.codec == codec
+	 */
+	public void moveFirst(int count, MappedBlock<E> other) {
+		for (int i = 0; i < count; i++) {
+			int size = other.size();
+			other.setSize(size + 1);
+			copy(buffer, record(i), other.buffer, other.record(size));
+		}
+		setFirst((first() + count) % capacity);
+		setSize(size() - count);
+	}
+
+	// private matter
+
+	private int first() {
+		return buffer.getInt(offset);
+	}
+
+	private void setFirst(int first) {
+		buffer.putInt(offset, first);
+	}
+
+	private void setSize(int size) {
+		buffer.putInt(offset + 4, size);
+	}
+
+	/*
+	 * Position in buffer of the record of the element at a given position
+	 * in the block's sequence.
+	 */
+	//@requires 0<=index && index<capacity()
+	private int record(int index) {
+		int i = first() + index;
+		if (i >= capacity)
+			i -= capacity;
+		return offset + HEADER + i * width;
+	}
+
+	//@requires 0<=i && i<capacity()
+	private int inc(int i) {
+		return i + 1 == capacity ? 0 : i + 1;
+	}
+
+	//@requires 0<=i && i<capacity()
+	private int dec(int i) {
+		return i == 0 ? capacity - 1 : i - 1;
+	}
+
+	/*
+	 * Copies a record, eight bytes at a time while it can.
+	 */
+	private void copy(ByteBuffer from, int src, ByteBuffer to, int dst) {
+		int i = 0;
+		for (; i + Long.BYTES <= width; i += Long.BYTES)
+			to.putLong(dst + i, from.getLong(src + i));
+		for (; i < width; i++)
+			to.put(dst + i, from.get(src + i));
+	}
+
+
+	// toString
+
+	/**
+	 * @return A textual representation of this block
+	 * with elements separated by commas and inside [ and ].
+	 */
+	@Override
+	public String toString () {
+		StringJoiner result = new StringJoiner (",", "[", "]");
+		for (int i = 0; i < size(); i++)
+			result.add(get(i).toString());
+		return result.toString();
+	}
+}
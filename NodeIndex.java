@@ -0,0 +1,504 @@
+import java.util.ArrayDeque;
+import java.util.function.Predicate;
+
+/**
+ * A positional index over a doubly linked chain of nodes, each node holding
+ * a number of elements.
+ *
+ * The index is a randomized balanced tree (a treap) whose in-order traversal
+ * is the order of the chain. Every entry caches the number of elements held
+ * by its subtree, which makes it possible to find the node holding the
+ * indexth element, to insert or remove a node and to update the size of a
+ * node, all in O(log n) expected time.
+ *
+ * The number of elements of a node known to the index (its weight) may lag
+ * behind the real one (its size). That is harmless for the first and the last
+ * node of the chain, whose positions are known without asking the index, so
+ * lists may keep changing their end nodes in O(1) and synchronize them only
+ * when they stop being end nodes.
+ *
+ * @param <N> the type of the nodes of the chain
+ */
+class NodeIndex<N extends NodeIndex.Entry<N>> {
+
+	/*
+	 * A node of the chain, which is also an entry of the index.
+	 */
+	abstract static class Entry<N extends Entry<N>> {
+
+		/* *** Fields *** */
+		//The chain
+		N next;
+		N prev;
+		//The tree
+		N left;
+		N right;
+		N parent;
+		int priority;
+		//Number of elements of this node known to the index
+		int weight;
+		//Number of elements known to the index in this subtree
+		int total;
+
+		/* *** Methods *** */
+		/**
+		 * What's the number of elements held by this node?
+		 * @return The number of elements held by this node.
+		 */
+		abstract int size();
+	}
+
+	/* ********* FINAL FIELDS ********** */
+	//Bound on the depth walked by readers that don't own the index, far 
+	//beyond the depth of any tree that fits in memory
+	private final static int MAX_DEPTH = 1000;
+
+	/* ************ FIELDS ************* */
+	private N root;
+	//Position of the first element of the node last returned by find
+	private int base;
+	//State of the generator of priorities (xorshift)
+	private int seed = 0x2545F491;
+	//Right part of the tree last split
+	private N rest;
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * What's the node holding the indexth element known to the index?
+	 * @param index - the position
+	 * @requires index >= 0 && index < total number of elements known
+	 * to the index
+	 * @ensures It returns the node holding the indexth element and base()
+	 * becomes the position of its first element.
+	 * @return The node holding the indexth element.
+	 */
+	N find(int index) {
+		N x = root;
+		int b = 0;
+		while(true){
+			int l = total(x.left);
+			if(index < l){
+				x = x.left;
+			} else {
+				index -= l;
+				b += l;
+				if(index < x.weight){
+					base = b;
+					return x;
+				}
+				index -= x.weight;
+				b += x.weight;
+				x = x.right;
+			}
+		}
+	}
+
+	/**
+	 * What's the node holding the indexth element known to the index?
+	 * Unlike find, it changes nothing, so concurrent readers may call it.
+	 * If the index is being changed at the same time, it may return a wrong
+	 * node or null, but it always returns.
+	 * @param index - the position
+	 * @requires index >= 0 && index < total number of elements known
+	 * to the index
+	 * @return The node holding the indexth element.
+	 */
+	N at(int index) {
+		N x = root;
+		for(int depth = 0; x != null && depth < MAX_DEPTH; depth++){
+			int l = total(x.left);
+			if(index < l){
+				x = x.left;
+			} else if(index < l + x.weight){
+				return x;
+			} else {
+				index -= l + x.weight;
+				x = x.right;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * What's the position of the first element of a node, counting the
+	 * elements known to the index?
+	 * Like at, it changes nothing and always returns.
+	 * @param x - the node
+	 * @requires x belongs to the index
+	 * @return The number of elements known to the index before x.
+	 */
+	int position(N x) {
+		int result = total(x.left);
+		N c = x;
+		N p = x.parent;
+		for(int depth = 0; p != null && depth < MAX_DEPTH; depth++){
+			if(p.right == c)
+				result += total(p.left) + p.weight;
+			c = p;
+			p = p.parent;
+		}
+		return result;
+	}
+
+	/**
+	 * What's the last node of a prefix of the chain, given a test that 
+	 * holds for the nodes of the prefix and for no other?
+	 * Like find, it goes down the tree once, testing a node per level.
+	 * @param inPrefix - the test
+	 * @ensures If it returns a node, base() becomes the position of its 
+	 * first element.
+	 * @return The last node passing the test, null if none does.
+	 */
+	N last(Predicate<? super N> inPrefix) {
+		N x = root;
+		N result = null;
+		int b = 0;
+		while(x != null){
+			if(inPrefix.test(x)){
+				result = x;
+				b += total(x.left);
+				base = b;
+				b += x.weight;
+				x = x.right;
+			} else {
+				x = x.left;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * What's the position of the first element of the node last returned
+	 * by find?
+	 * @return The position of the first element of that node.
+	 */
+	int base() {
+		return base;
+	}
+
+	/**
+	 * How many elements of a node are not yet known to the index?
+	 * @param x - the node
+	 * @requires x != null
+	 * @return The difference between the size of x and its weight.
+	 */
+	int lag(N x) {
+		return x.size() - x.weight;
+	}
+
+	/**
+	 * Makes the index aware of the current size of a node.
+	 * @param x - the node
+	 * @requires x belongs to the index
+	 * @ensures lag(x) == 0
+	 */
+	void sync(N x) {
+		int delta = x.size() - x.weight;
+		if(delta != 0){
+			x.weight += delta;
+			for(N p = x; p != null; p = p.parent)
+				p.total += delta;
+		}
+	}
+
+	/**
+	 * Inserts a node right after another one.
+	 * @param anchor - the node that will precede x, or null if x is to be
+	 * the first one
+	 * @param x - the node to insert
+	 * @requires x does not belong to the index &&
+	 * (anchor == null || anchor belongs to the index)
+	 */
+	void insertAfter(N anchor, N x) {
+		if(anchor == null){
+			if(root == null)
+				attach(null, x, false);
+			else
+				attach(leftmost(root), x, true);
+		} else if(anchor.right == null){
+			attach(anchor, x, false);
+		} else {
+			attach(leftmost(anchor.right), x, true);
+		}
+	}
+
+	/**
+	 * Inserts a node right before another one.
+	 * @param anchor - the node that will follow x, or null if x is to be
+	 * the last one
+	 * @param x - the node to insert
+	 * @requires x does not belong to the index &&
+	 * (anchor == null || anchor belongs to the index)
+	 */
+	void insertBefore(N anchor, N x) {
+		if(anchor == null){
+			if(root == null)
+				attach(null, x, false);
+			else
+				attach(rightmost(root), x, false);
+		} else if(anchor.left == null){
+			attach(anchor, x, true);
+		} else {
+			attach(rightmost(anchor.left), x, false);
+		}
+	}
+
+	/**
+	 * Removes a node from the index.
+	 * @param x - the node to remove
+	 * @requires x belongs to the index
+	 */
+	void remove(N x) {
+		//Rotate x down until it becomes a leaf
+		while(x.left != null || x.right != null){
+			N child;
+			if(x.left == null)
+				child = x.right;
+			else if(x.right == null || x.left.priority < x.right.priority)
+				child = x.left;
+			else
+				child = x.right;
+			rotateUp(child);
+		}
+		N p = x.parent;
+		if(p == null)
+			root = null;
+		else if(p.left == x)
+			p.left = null;
+		else
+			p.right = null;
+		for(N q = p; q != null; q = q.parent)
+			q.total -= x.weight;
+		x.parent = null;
+		x.weight = 0;
+		x.total = 0;
+	}
+
+	/**
+	 * Inserts a sequence of consecutive nodes of the chain, in time linear
+	 * in their number plus O(log n).
+	 * @param head - the first node of the sequence
+	 * @param tail - the last node of the sequence
+	 * @requires head..tail are already linked in the chain, and none of
+	 * them belongs to the index, while the nodes around them do
+	 */
+	void insertChain(N head, N tail) {
+		N middle = build(head, tail);
+		if(root == null){
+			root = middle;
+		} else if(tail.next == null){
+			root = join(root, middle);
+		} else {
+			N left = splitBefore(tail.next);
+			root = join(join(left, middle), rest);
+		}
+		root.parent = null;
+	}
+
+	/**
+	 * Removes a sequence of consecutive nodes of the chain, in O(log n)
+	 * expected time, whatever their number.
+	 * @param head - the first node of the sequence
+	 * @param tail - the last node of the sequence
+	 * @requires head..tail are consecutive nodes of the chain, all of them
+	 * belonging to the index, and still linked to the nodes around them
+	 */
+	void removeChain(N head, N tail) {
+		N left = splitBefore(head);
+		N right = null;
+		if(tail.next != null){
+			splitBefore(tail.next);
+			right = rest;
+		}
+		root = join(left, right);
+		if(root != null)
+			root.parent = null;
+	}
+
+	/**
+	 * Forgets every node.
+	 */
+	void clear() {
+		root = null;
+	}
+
+	// private matter
+
+	/*
+	 * Builds a tree over the nodes head..tail, in linear time, and returns
+	 * its root. Nodes are pushed in order on a stack holding the right spine
+	 * of the tree built so far.
+	 */
+	private N build(N head, N tail) {
+		ArrayDeque<N> spine = new ArrayDeque<N>();
+		N x = head;
+		while(true){
+			x.priority = nextPriority();
+			x.weight = x.size();
+			x.parent = null;
+			x.right = null;
+			N popped = null;
+			while(!spine.isEmpty() && spine.peek().priority > x.priority)
+				popped = spine.pop();
+			x.left = popped;
+			if(popped != null)
+				popped.parent = x;
+			if(!spine.isEmpty()){
+				spine.peek().right = x;
+				x.parent = spine.peek();
+			}
+			spine.push(x);
+			if(x == tail)
+				break;
+			x = x.next;
+		}
+		N result = spine.peekLast();
+		sum(result);
+		return result;
+	}
+
+	/*
+	 * Computes the totals of a subtree.
+	 */
+	private int sum(N x) {
+		if(x == null)
+			return 0;
+		x.total = x.weight + sum(x.left) + sum(x.right);
+		return x.total;
+	}
+
+	/*
+	 * Joins two trees, every node of a preceding every node of b, and
+	 * returns the root of the result.
+	 */
+	private N join(N a, N b) {
+		if(a == null)
+			return b;
+		if(b == null)
+			return a;
+		if(a.priority < b.priority){
+			N r = join(a.right, b);
+			a.right = r;
+			r.parent = a;
+			a.total = a.weight + total(a.left) + r.total;
+			return a;
+		} else {
+			N l = join(a, b.left);
+			b.left = l;
+			l.parent = b;
+			b.total = b.weight + l.total + total(b.right);
+			return b;
+		}
+	}
+
+	/*
+	 * Splits the tree holding x in the nodes before x and the others.
+	 * Returns the root of the former, rest becomes the root of the latter.
+	 */
+	private N splitBefore(N x) {
+		N left = x.left;
+		if(left != null)
+			left.parent = null;
+		N right = x;
+		x.left = null;
+		x.total = x.weight + total(x.right);
+		N child = x;
+		N p = x.parent;
+		x.parent = null;
+		while(p != null){
+			N g = p.parent;
+			if(p.right == child){
+				p.right = left;
+				if(left != null)
+					left.parent = p;
+				left = p;
+			} else {
+				p.left = right;
+				right.parent = p;
+				right = p;
+			}
+			p.total = p.weight + total(p.left) + total(p.right);
+			p.parent = null;
+			child = p;
+			p = g;
+		}
+		rest = right;
+		return left;
+	}
+
+	/*
+	 * Hangs x as a leaf below parent and restores the heap order of the
+	 * priorities.
+	 */
+	private void attach(N parent, N x, boolean asLeft) {
+		x.left = null;
+		x.right = null;
+		x.parent = parent;
+		x.priority = nextPriority();
+		x.weight = x.size();
+		x.total = x.weight;
+		if(parent == null)
+			root = x;
+		else if(asLeft)
+			parent.left = x;
+		else
+			parent.right = x;
+		for(N p = parent; p != null; p = p.parent)
+			p.total += x.weight;
+		while(x.parent != null && x.parent.priority > x.priority)
+			rotateUp(x);
+	}
+
+	/*
+	 * Rotates x above its parent, keeping the order of the chain.
+	 */
+	private void rotateUp(N x) {
+		N p = x.parent;
+		N g = p.parent;
+		if(p.left == x){
+			p.left = x.right;
+			if(x.right != null)
+				x.right.parent = p;
+			x.right = p;
+		} else {
+			p.right = x.left;
+			if(x.left != null)
+				x.left.parent = p;
+			x.left = p;
+		}
+		p.parent = x;
+		x.parent = g;
+		if(g == null)
+			root = x;
+		else if(g.left == p)
+			g.left = x;
+		else
+			g.right = x;
+		x.total = p.total;
+		p.total = p.weight + total(p.left) + total(p.right);
+	}
+
+	private N leftmost(N x) {
+		while(x.left != null)
+			x = x.left;
+		return x;
+	}
+
+	private N rightmost(N x) {
+		while(x.right != null)
+			x = x.right;
+		return x;
+	}
+
+	private int total(N x) {
+		return x == null ? 0 : x.total;
+	}
+
+	private int nextPriority() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+}
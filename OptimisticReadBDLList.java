@@ -0,0 +1,284 @@
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A BDLList that may be shared between threads, whose reads don't lock.
+ *
+ * Reads walk the list optimistically and validate the walk against the
+ * version of a StampedLock, falling back to a shared lock only when a
+ * structural change ran meanwhile. Writes that keep the structure of the
+ * list, like set, share the lock with each other and with the readers, as
+ * they touch a single element of a single node. Writes that change the
+ * structure (adds and removes) take the lock exclusively.
+ *
+ * Only the reads are optimistic: a single lock serializes every structural
+ * write, so adds and removes don't scale with the number of threads, however
+ * far apart their positions are. Locking only the nodes a write touches
+ * wouldn't be enough, as every add and remove moves the positions of all the
+ * elements after it: the positional index has to change at once with the
+ * node, or a write running meanwhile would find its position in the wrong
+ * node. Iteration goes over a snapshot of the list.
+ *
+ * @param <T> the type of the elements
+ */
+public class OptimisticReadBDLList<T> implements Iterable<T> {
+
+	/* ************ FIELDS ************* */
+	private final BDLList<T> list;
+	//Version of the structure of list, and lock of its changes
+	private final StampedLock lock = new StampedLock();
+
+	/* ********* CONSTRUCTORS ********** */
+
+	/**
+	 * Constructor to an empty list with the default block capacity.
+	 */
+	public OptimisticReadBDLList() {
+		this.list = new BDLList<T>();
+	}
+
+	/**
+	 * Constructor to an empty list whose blocks hold a given number of
+	 * elements.
+	 * @param capacity - the capacity of the blocks
+	 * @requires capacity > 1
+	 */
+	public OptimisticReadBDLList(int capacity) {
+		this.list = new BDLList<T>(capacity);
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * Is this list empty?
+	 * @return true if empty, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * What's the current size of this list?
+	 * @return The size of the list.
+	 */
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int result = list.size();
+		if(lock.validate(stamp))
+			return result;
+		stamp = lock.readLock();
+		try {
+			return list.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * What's the element at the indexth position in the list?
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @ensures It returns the element at the indexth position.
+	 * @return The element at the indexth position.
+	 */
+	public T get(int index) {
+		long stamp = lock.tryOptimisticRead();
+		if(stamp != 0){
+			T result = null;
+			try {
+				result = list.read(index);
+			} catch(RuntimeException e) {
+				//The walk saw a list being changed, validate fails below
+			}
+			if(result != null && lock.validate(stamp))
+				return result;
+		}
+		stamp = lock.readLock();
+		try {
+			return list.read(index);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Where's the first element equal to a given object?
+	 * Calls to set run meanwhile, so it may miss an element set during the
+	 * call, or find one replaced during it.
+	 * @param o - the object
+	 * @return The position of the first element equal to o, -1 if there is
+	 * none.
+	 */
+	public int indexOf(Object o) {
+		long stamp = lock.readLock();
+		try {
+			//The spliterator doesn't move the finger, unlike the iterator
+			Iterator<T> elements = Spliterators.iterator(list.spliterator());
+			for(int index = 0; elements.hasNext(); index++)
+				if(elements.next().equals(o))
+					return index;
+			return -1;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Is there an element equal to a given object?
+	 * @param o - the object
+	 * @return true if there is, false otherwise.
+	 */
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	/**
+	 * A copy of the list, as it was at some point of the call.
+	 * It takes the lock exclusively, for time linear in the size of the
+	 * list, so readers and every writer wait for it.
+	 * @return A new BDLList holding the elements of this list.
+	 */
+	public BDLList<T> snapshot() {
+		long stamp = lock.writeLock();
+		try {
+			//Not a clone: sharing blocks would make set copy them, and two
+			//calls to set copying the same block would lose one of the writes
+			BDLList<T> result = new BDLList<T>(list.blockCapacity());
+			list.spliterator().forEachRemaining(result::add);
+			return result;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * An iterator over a snapshot of the list, which doesn't see later
+	 * changes and doesn't support remove.
+	 * @return An iterator of the elements of the list.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return Spliterators.iterator(snapshot().spliterator());
+	}
+
+	/**
+	 * Set the indexth position in the list to a given value.
+	 * It runs together with readers and other calls to set.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index < size() && value != null
+	 * @ensures It sets the indexth position to value.
+	 */
+	public void set(int index, T value) {
+		long stamp = lock.readLock();
+		try {
+			list.write(index, value);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Add value to the end of the list.
+	 * @param value - the value
+	 * @requires value != null
+	 * @ensures It will add value to the end of the list.
+	 */
+	public void add(T value) {
+		long stamp = lock.writeLock();
+		try {
+			list.add(value);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Add an element to the indexth position in the list.
+	 * @param index - the index
+	 * @param value - the value
+	 * @requires index >= 0 && index < size() && value != null
+	 * @ensures It adds value to the indexth position.
+	 */
+	public void add(int index, T value) {
+		long stamp = lock.writeLock();
+		try {
+			list.add(index, value);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Add every element of a collection to the end of the list, at once.
+	 * @param c - the collection
+	 * @requires c != null && c holds no null elements
+	 * @ensures It adds every element of c to the end of the list.
+	 * @return true if the list changed, false otherwise.
+	 */
+	public boolean addAll(Collection<? extends T> c) {
+		long stamp = lock.writeLock();
+		try {
+			return list.addAll(c);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove the element at the indexth position in the list.
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @ensures It removes the element at the indexth position, the elements
+	 * after it move one position to the left.
+	 * @return The removed element.
+	 */
+	public T remove(int index) {
+		long stamp = lock.writeLock();
+		try {
+			return list.remove(index);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove the elements from position from to position to, exclusive.
+	 * @param from - the first position to remove
+	 * @param to - the position after the last one to remove
+	 * @requires 0 <= from && from <= to && to <= size()
+	 * @ensures The elements after them move to - from positions to the left.
+	 */
+	public void removeRange(int from, int to) {
+		long stamp = lock.writeLock();
+		try {
+			list.removeRange(from, to);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove every element of the list.
+	 * @ensures isEmpty()
+	 */
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			list.clear();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Contextual representation of OptimisticReadBDLList, as the list was at
+	 * some point of the call
+	 */
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
@@ -0,0 +1,218 @@
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class to measure how the throughput of the optimistic reads of
+ * OptimisticReadBDLList scales with the number of threads, compared with a
+ * BDLList behind a single global lock. Adds and removes take a single lock
+ * in both, so only the read-heavy mixes are expected to scale.
+ *
+ * For each mix of reads and writes and each number of threads, from 1 to
+ * twice the number of cores, the threads run random gets, sets and inserts
+ * and removes at random positions on a shared list for a while, and the total
+ * operations per second are printed. Inserts and removes alternate, so the
+ * size of the list stays about the same.
+ *
+ * Usage: java OptimisticReadBDLListBenchmark [size] [millis]
+ */
+public class OptimisticReadBDLListBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int millis = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		new OptimisticReadBDLListBenchmark(size, millis).run();
+	}
+
+	/*
+	 * Percentages of gets, sets and structural writes of each mix.
+	 */
+	private static final int[][] MIXES = {{100, 0, 0}, {98, 1, 1}, {90, 5, 5},
+		{50, 25, 25}};
+
+	/*
+	 * A list under measurement.
+	 */
+	private interface Subject {
+		Integer get(int index);
+
+		void set(int index, Integer value);
+
+		void add(int index, Integer value);
+
+		void remove(int index);
+
+		int size();
+	}
+
+	/*
+	 * BDLList behind a single lock, as lists are shared without
+	 * OptimisticReadBDLList.
+	 */
+	private static final class LockedSubject implements Subject {
+		private final BDLList<Integer> list = new BDLList<Integer>();
+
+		public synchronized Integer get(int index) {
+			return list.get(index);
+		}
+
+		public synchronized void set(int index, Integer value) {
+			list.set(index, value);
+		}
+
+		public synchronized void add(int index, Integer value) {
+			list.add(index, value);
+		}
+
+		public synchronized void remove(int index) {
+			list.remove(index);
+		}
+
+		public synchronized int size() {
+			return list.size();
+		}
+
+		@Override
+		public String toString() {
+			return "locked BDLList";
+		}
+	}
+
+	/*
+	 * Adapter for OptimisticReadBDLList.
+	 */
+	private static final class OptimisticSubject implements Subject {
+		private final OptimisticReadBDLList<Integer> list = new OptimisticReadBDLList<Integer>();
+
+		public Integer get(int index) {
+			return list.get(index);
+		}
+
+		public void set(int index, Integer value) {
+			list.set(index, value);
+		}
+
+		public void add(int index, Integer value) {
+			list.add(index, value);
+		}
+
+		public void remove(int index) {
+			list.remove(index);
+		}
+
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public String toString() {
+			return "OptimisticReadBDLList";
+		}
+	}
+
+	/*
+	 * Number of elements in the lists measured.
+	 */
+	private final int size;
+
+	/*
+	 * Time given to each measurement, in milliseconds.
+	 */
+	private final int millis;
+
+	/*
+	 * Sink for the values read, so that reads are not optimized away.
+	 */
+	private final LongAdder sink = new LongAdder();
+
+
+	public OptimisticReadBDLListBenchmark(int size, int millis) {
+		this.size = size;
+		this.millis = millis;
+	}
+
+	/**
+	 * Measures every mix, number of threads and list, printing a table for
+	 * each mix with a line for each number of threads, in ops/s.
+	 * @throws InterruptedException if interrupted while waiting for the
+	 * threads
+	 */
+	public void run() throws InterruptedException {
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.printf("size=%d millis=%d cores=%d%n", size, millis, cores);
+		for (int[] mix : MIXES) {
+			System.out.printf("%nget/set/add+remove=%d/%d/%d%n%8s %18s %22s%n",
+					mix[0], mix[1], mix[2], "threads", "locked BDLList",
+					"OptimisticReadBDLList");
+			for (int threads = 1; threads <= 2 * cores; threads *= 2) {
+				System.out.printf("%8d", threads);
+				for (int i = 0; i < 2; i++) {
+					measure(i == 0 ? new LockedSubject() : new OptimisticSubject(),
+							mix, threads, millis / 4);
+					System.out.printf(i == 0 ? " %18.0f" : " %22.0f", measure(i == 0
+							? new LockedSubject() : new OptimisticSubject(),
+							mix, threads, millis));
+				}
+				System.out.println();
+			}
+		}
+		if (sink.sum() == 42)
+			System.out.println();
+	}
+
+	/*
+	 * Runs a mix on a new list with size elements, from a number of threads,
+	 * for about millis milliseconds. Returns the total ops/s.
+	 */
+	private double measure(final Subject subject, final int[] mix,
+			final int threads, int millis) throws InterruptedException {
+		for (int i = 0; i < size; i++)
+			subject.add(0, i);
+		final LongAdder count = new LongAdder();
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] deadline = new long[1];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final Random rand = new Random(t);
+			workers[t] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					long local = 0;
+					long read = 0;
+					boolean grow = true;
+					while ((local & 255) != 0 || System.nanoTime() < deadline[0]) {
+						int dice = rand.nextInt(100);
+						//Each thread removes at most one element more than it
+						//added, so the position stays valid until it is used
+						int index = rand.nextInt(subject.size() - threads);
+						if (dice < mix[0]) {
+							read += subject.get(index);
+						} else if (dice < mix[0] + mix[1]) {
+							subject.set(index, dice);
+						} else {
+							if (grow)
+								subject.add(index, dice);
+							else
+								subject.remove(index);
+							grow = !grow;
+						}
+						local++;
+					}
+					count.add(local);
+					sink.add(read);
+				}
+			});
+			workers[t].start();
+		}
+		long begin = System.nanoTime();
+		deadline[0] = begin + millis * 1000000L;
+		start.countDown();
+		for (Thread worker : workers)
+			worker.join();
+		return count.sum() * 1e9 / (System.nanoTime() - begin);
+	}
+}
@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A class to race readers against writers on an OptimisticReadBDLList, checking
+ * what every reader sees and what the list holds at the end.
+ *
+ * The list starts with size distinct elements. Each writer inserts new
+ * elements, distinct from every other, at random positions and removes
+ * elements at random positions, alternately, so the size of the list stays
+ * between size and size plus the number of writers. Meanwhile the readers:
+ * - check that size() stays in those bounds, and that get at a position
+ * below size never fails nor returns null;
+ * - take snapshots, and check that they are in the bounds and hold no null
+ * and no element twice;
+ * - look for elements they read with indexOf, and check that it finds
+ * them, if at all, at a position in those bounds.
+ * At the end, the list must hold exactly the initial elements and the ones
+ * inserted, minus the ones the writers removed.
+ *
+ * It throws an AssertionError at the first failure.
+ *
+ * Usage: java OptimisticReadBDLListStressTest [size] [millis] [readers] [writers]
+ */
+public class OptimisticReadBDLListStressTest {
+
+	public static void main(String[] args) throws InterruptedException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int millis = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int readers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		int writers = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+		new OptimisticReadBDLListStressTest(size, readers, writers).run(millis);
+	}
+
+	/*
+	 * Elements inserted by a writer start at (writer + 1) * STRIDE, so they
+	 * are distinct from the initial ones and from each other.
+	 */
+	private static final int STRIDE = 100000000;
+
+	private final int size;
+	private final int readers;
+	private final int writers;
+	private final OptimisticReadBDLList<Integer> list;
+	//The first failure of any thread
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private volatile boolean stop = false;
+
+
+	public OptimisticReadBDLListStressTest(int size, int readers, int writers) {
+		this.size = size;
+		this.readers = readers;
+		this.writers = writers;
+		//Small blocks, so that writes shift elements across many nodes
+		this.list = new OptimisticReadBDLList<Integer>(8);
+	}
+
+	/**
+	 * Runs the readers and the writers for about millis milliseconds and
+	 * checks the list they leave.
+	 * @param millis - how long to race
+	 * @throws InterruptedException if interrupted while waiting for the
+	 * threads
+	 */
+	public void run(int millis) throws InterruptedException {
+		for (int i = 0; i < size; i++)
+			list.add(i);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<List<Integer>> added = new ArrayList<List<Integer>>();
+		final List<List<Integer>> removed = new ArrayList<List<Integer>>();
+		final long[] reads = new long[readers];
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < writers; t++) {
+			final int writer = t;
+			final List<Integer> adds = new ArrayList<Integer>();
+			final List<Integer> removes = new ArrayList<Integer>();
+			added.add(adds);
+			removed.add(removes);
+			threads.add(thread(start, () -> write(writer, adds, removes)));
+		}
+		for (int t = 0; t < readers; t++) {
+			final int reader = t;
+			threads.add(thread(start, () -> reads[reader] = read(reader)));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		start.countDown();
+		Thread.sleep(millis);
+		stop = true;
+		for (Thread thread : threads)
+			thread.join();
+		if (failure.get() != null)
+			throw new AssertionError("a thread failed", failure.get());
+
+		Set<Integer> expected = new HashSet<Integer>();
+		for (int i = 0; i < size; i++)
+			expected.add(i);
+		long writes = 0;
+		//A writer may remove what another one inserted
+		for (int t = 0; t < writers; t++) {
+			expected.addAll(added.get(t));
+			writes += added.get(t).size() + removed.get(t).size();
+		}
+		for (int t = 0; t < writers; t++)
+			for (Integer value : removed.get(t))
+				if (!expected.remove(value))
+					throw new AssertionError(value + " removed twice or never added");
+		Set<Integer> actual = new HashSet<Integer>();
+		for (Integer value : list)
+			if (!actual.add(value))
+				throw new AssertionError(value + " is in the list twice");
+		if (!actual.equals(expected))
+			throw new AssertionError("the list lost or gained elements: "
+					+ actual.size() + " instead of " + expected.size());
+		long total = 0;
+		for (long r : reads)
+			total += r;
+		System.out.printf("OK: %d writes by %d writers, %d reads by %d readers, "
+				+ "final size %d%n", writes, writers, total, readers, list.size());
+	}
+
+	private Thread thread(final CountDownLatch start, final Runnable body) {
+		return new Thread(() -> {
+			try {
+				start.await();
+				body.run();
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+				stop = true;
+			}
+		});
+	}
+
+	/*
+	 * Inserts and removes at random positions, alternately, recording the
+	 * elements inserted and removed.
+	 */
+	private void write(int writer, List<Integer> adds, List<Integer> removes) {
+		Random rand = new Random(writer);
+		int next = (writer + 1) * STRIDE;
+		while (!stop) {
+			//The other writers may remove one element each before this one
+			//is inserted, but never shrink the list below size
+			adds.add(next);
+			list.add(rand.nextInt(size), next++);
+			removes.add(list.remove(rand.nextInt(size)));
+		}
+	}
+
+	/*
+	 * Reads at random, checking what it sees. Returns the number of reads.
+	 */
+	private long read(int reader) {
+		Random rand = new Random(-1 - reader);
+		long count = 0;
+		while (!stop) {
+			int dice = rand.nextInt(1000);
+			if (dice == 0) {
+				BDLList<Integer> snapshot = list.snapshot();
+				inBounds(snapshot.size());
+				Set<Integer> seen = new HashSet<Integer>();
+				for (Integer value : snapshot)
+					if (value == null || !seen.add(value))
+						throw new AssertionError("snapshot holds " + value + " twice");
+			} else if (dice < 10) {
+				//The element may be removed or moved before indexOf runs
+				int index = list.indexOf(list.get(rand.nextInt(size)));
+				if (index >= size + writers)
+					throw new AssertionError("indexOf found " + index);
+			} else if (dice < 100) {
+				inBounds(list.size());
+			} else {
+				int index = rand.nextInt(size);
+				if (list.get(index) == null)
+					throw new AssertionError("get(" + index + ") is null");
+			}
+			count++;
+		}
+		return count;
+	}
+
+	private void inBounds(int actual) {
+		if (actual < size || actual > size + writers)
+			throw new AssertionError("size " + actual + " out of [" + size + ", "
+					+ (size + writers) + "]");
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * How a BDLList makes room for an insert in a full node, trading the fill
+ * of its blocks, hence its memory and the speed of its lookups, for the
+ * number of elements an insert moves from a node to another.
+ *
+ * BDLListMetrics counts those moves when lists count their operations.
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Shifts the last element of every node from the full one to the first
+	 * not full node at most BSIZE nodes ahead, or, if they are all full,
+	 * links a new node after the full one and spreads the elements of those
+	 * nodes evenly over them and the new one. Such an insert moves less than
+	 * BSIZE + 1 blocks and touches up to BSIZE + 2 nodes, but it's rare:
+	 * under random inserts, blocks stay about nine tenths full, at a few
+	 * moves per insert. The default.
+	 */
+	SHIFT,
+
+	/**
+	 * Splits the full node in two halves at once. An insert moves half a
+	 * block, and touches two nodes, but blocks end up half full.
+	 */
+	SPLIT,
+
+	/**
+	 * Shares the elements of the full node with a neighbour that isn't 
+	 * full, or else spreads the elements of the full node and a full 
+	 * neighbour over three nodes, as B*-trees do, so that the new blocks are
+	 * at least two thirds full. An insert moves up to a block, and touches
+	 * at most three nodes.
+	 */
+	SPLIT_2_3
+}
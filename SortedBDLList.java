@@ -0,0 +1,246 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * A BDLList kept sorted by a comparator, which finds values by binary search.
+ *
+ * It's the same chain of nodes and blocks of a BDLList, and the positional
+ * index of the chain doubles as an index of the first element of every node:
+ * a search goes down the index comparing the first element of a node per
+ * level, and then binary-searches the block of the node found, so it takes
+ * O(log n) comparisons. Inserts go through BDLList.add at the position found,
+ * which keeps the blocks balanced as usual, without looking for the node
+ * again. Equal values keep the order they were inserted in.
+ *
+ * @param <T> the type of the elements
+ */
+public class SortedBDLList<T> implements Iterable<T> {
+
+	/* ************ FIELDS ************* */
+	private final BDLList<T> list;
+	private final Comparator<? super T> comparator;
+
+	/* ********* CONSTRUCTORS ********** */
+
+	/**
+	 * Constructor to an empty list sorted by a comparator, with the default
+	 * block capacity.
+	 * @param comparator - the order of the list
+	 * @requires comparator != null
+	 */
+	public SortedBDLList(Comparator<? super T> comparator) {
+		this.list = new BDLList<T>();
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Constructor to an empty list sorted by a comparator, whose blocks hold
+	 * a given number of elements.
+	 * @param comparator - the order of the list
+	 * @param capacity - the capacity of the blocks
+	 * @requires comparator != null && capacity > 1
+	 */
+	public SortedBDLList(Comparator<? super T> comparator, int capacity) {
+		this.list = new BDLList<T>(capacity);
+		this.comparator = comparator;
+	}
+
+	/* ************ METHODS ************ */
+
+	/**
+	 * What's the order of this list?
+	 * @return The comparator of the list.
+	 */
+	public Comparator<? super T> comparator() {
+		return comparator;
+	}
+
+	/**
+	 * Is this list empty?
+	 * @return true if empty, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return list.isEmpty();
+	}
+
+	/**
+	 * What's the current size of this list?
+	 * @return The size of the list.
+	 */
+	public int size() {
+		return list.size();
+	}
+
+	/**
+	 * What's the element at the indexth position in the list?
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @return The element at the indexth position.
+	 */
+	public T get(int index) {
+		return list.get(index);
+	}
+
+	/**
+	 * Inserts a value in its place in the order, after the elements equal
+	 * to it.
+	 * @param value - the value
+	 * @requires value != null
+	 * @ensures The list stays sorted.
+	 * @return The position where value was inserted.
+	 */
+	public int insert(T value) {
+		int index = list.bound(value, comparator, true);
+		if(index == list.size())
+			list.add(value);
+		else
+			list.add(index, value);
+		return index;
+	}
+
+	/**
+	 * Where's the first element equal to a value?
+	 * @param value - the value
+	 * @requires value != null
+	 * @return The position of the first element equal to value, -1 if there
+	 * is none.
+	 */
+	public int indexOf(T value) {
+		int index = list.bound(value, comparator, false);
+		if(index < list.size() && comparator.compare(list.get(index), value) == 0)
+			return index;
+		return -1;
+	}
+
+	/**
+	 * Is there an element equal to a value?
+	 * @param value - the value
+	 * @requires value != null
+	 * @return true if there is, false otherwise.
+	 */
+	public boolean contains(T value) {
+		return indexOf(value) >= 0;
+	}
+
+	/**
+	 * What's the greatest element less than or equal to a value?
+	 * @param value - the value
+	 * @requires value != null
+	 * @return The last element not greater than value, null if there is none.
+	 */
+	public T floor(T value) {
+		int index = list.bound(value, comparator, true);
+		return index > 0 ? list.get(index - 1) : null;
+	}
+
+	/**
+	 * What's the least element greater than or equal to a value?
+	 * @param value - the value
+	 * @requires value != null
+	 * @return The first element not less than value, null if there is none.
+	 */
+	public T ceiling(T value) {
+		int index = list.bound(value, comparator, false);
+		return index < list.size() ? list.get(index) : null;
+	}
+
+	/**
+	 * How many elements are less than a value?
+	 * @param value - the value
+	 * @requires value != null
+	 * @return The number of elements less than value, which is also the
+	 * position of the first element not less than it.
+	 */
+	public int rank(T value) {
+		return list.bound(value, comparator, false);
+	}
+
+	/**
+	 * How many elements are in a range of values?
+	 * @param from - the least value of the range
+	 * @param to - the value after the range
+	 * @requires from != null && to != null
+	 * @return The number of elements e such that from <= e < to, 0 if to
+	 * isn't greater than from.
+	 */
+	public int count(T from, T to) {
+		if(comparator.compare(from, to) >= 0)
+			return 0;
+		return list.bound(to, comparator, false) - list.bound(from, comparator, false);
+	}
+
+	/**
+	 * Removes the first element equal to a value.
+	 * @param value - the value
+	 * @requires value != null
+	 * @return true if there was one, false otherwise.
+	 */
+	public boolean remove(T value) {
+		int index = indexOf(value);
+		if(index < 0)
+			return false;
+		list.remove(index);
+		return true;
+	}
+
+	/**
+	 * Removes the element at the indexth position in the list.
+	 * Named apart from remove(T), so that removing an Integer value from a
+	 * list of Integers doesn't remove by position instead.
+	 * @param index - the index
+	 * @requires index >= 0 && index < size()
+	 * @return The element removed.
+	 */
+	public T removeAt(int index) {
+		return list.remove(index);
+	}
+
+	/**
+	 * Removes the elements in a range of values.
+	 * @param from - the least value of the range
+	 * @param to - the value after the range
+	 * @requires from != null && to != null
+	 * @return The number of elements removed.
+	 */
+	public int removeRange(T from, T to) {
+		if(comparator.compare(from, to) >= 0)
+			return 0;
+		int first = list.bound(from, comparator, false);
+		int last = list.bound(to, comparator, false);
+		list.removeRange(first, last);
+		return last - first;
+	}
+
+	/**
+	 * Removes every element from the list.
+	 */
+	public void clear() {
+		list.clear();
+	}
+
+	/**
+	 * An iterator over the elements, in order.
+	 * @return An iterator of this list.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return list.iterator();
+	}
+
+	/**
+	 * A sequential stream over the elements, in order.
+	 * @return A stream of the elements of this list.
+	 */
+	public Stream<T> stream() {
+		return list.stream();
+	}
+
+	/**
+	 * Textual representation of the list
+	 */
+	@Override
+	public String toString() {
+		return list.toString();
+	}
+}
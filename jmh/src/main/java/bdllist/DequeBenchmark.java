@@ -0,0 +1,73 @@
+package bdllist;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the throughput of the operations at the ends of BDLList
+ * and Block against ArrayDeque, which offers no others, for sizes from 10^2
+ * to 10^7 elements. Run them with -prof gc for the bytes allocated per
+ * operation.
+ *
+ * As in ListBenchmark, adds are paired with the removal of the element
+ * added, and values are below 128.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DequeBenchmark {
+
+	private static final Integer VALUE = 42;
+
+	@Param({"100", "10000", "1000000", "10000000"})
+	private int size;
+
+	@Param({"BDLList", "Block", "ArrayDeque"})
+	private String deque;
+
+	private Subject subject;
+
+	@Setup
+	public void setup() {
+		subject = Subject.of(deque, size);
+	}
+
+	@Benchmark
+	public Integer addRemoveLast() {
+		subject.add(VALUE);
+		return subject.removeLast();
+	}
+
+	@Benchmark
+	public Integer addRemoveFirst() {
+		subject.addFirst(VALUE);
+		return subject.removeFirst();
+	}
+
+	@Benchmark
+	public int iterate() {
+		int sum = 0;
+		for (Integer value : subject)
+			sum += value;
+		return sum;
+	}
+
+	@Benchmark
+	public String dequeToString() {
+		return subject.toString();
+	}
+}
@@ -0,0 +1,123 @@
+package bdllist;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the throughput of the positional operations of BDLList
+ * and Block against ArrayList and LinkedList, for lists from 10^2 to 10^7
+ * elements. Run them with -prof gc for the bytes allocated per operation.
+ * DequeBenchmark compares the operations at the ends with ArrayDeque.
+ *
+ * Inserts are paired with the removal of the element inserted, so that the
+ * list keeps its size across iterations; they measure an add and a remove
+ * at the same position. Values are below 128, so that boxing them doesn't
+ * allocate.
+ *
+ * JMH runs every pair of parameters in its own forks, so each list is the
+ * only one loaded behind Subject and its calls stay monomorphic.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ListBenchmark {
+
+	/*
+	 * Random positions, a power of two of them, cycled through.
+	 */
+	private static final int POSITIONS = 1024;
+
+	private static final Integer VALUE = 42;
+
+	@Param({"100", "10000", "1000000", "10000000"})
+	private int size;
+
+	@Param({"BDLList", "Block", "ArrayList", "LinkedList"})
+	private String list;
+
+	private Subject subject;
+	private int[] positions;
+	private int next;
+
+	@Setup
+	public void setup() {
+		subject = Subject.of(list, size);
+		Random rand = new Random(42);
+		positions = new int[POSITIONS];
+		for (int i = 0; i < POSITIONS; i++)
+			positions[i] = rand.nextInt(size);
+	}
+
+	private int position() {
+		return positions[next++ & (POSITIONS - 1)];
+	}
+
+	@Benchmark
+	public Integer get() {
+		return subject.get(position());
+	}
+
+	@Benchmark
+	public void set() {
+		subject.set(position(), VALUE);
+	}
+
+	@Benchmark
+	public Integer appendRemoveLast() {
+		subject.add(VALUE);
+		return subject.remove(size);
+	}
+
+	@Benchmark
+	public Integer addRemoveHead() {
+		subject.add(0, VALUE);
+		return subject.remove(0);
+	}
+
+	@Benchmark
+	public Integer addRemoveMiddle() {
+		subject.add(size / 2, VALUE);
+		return subject.remove(size / 2);
+	}
+
+	@Benchmark
+	public Integer addRemoveTail() {
+		subject.add(size - 1, VALUE);
+		return subject.remove(size - 1);
+	}
+
+	@Benchmark
+	public Integer addRemoveRandom() {
+		int index = position();
+		subject.add(index, VALUE);
+		return subject.remove(index);
+	}
+
+	@Benchmark
+	public int iterate() {
+		int sum = 0;
+		for (Integer value : subject)
+			sum += value;
+		return sum;
+	}
+
+	@Benchmark
+	public String listToString() {
+		return subject.toString();
+	}
+}
@@ -0,0 +1,140 @@
+package bdllist;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A structure under measurement, seen through the operations the benchmarks
+ * run. Structures that don't offer an operation throw
+ * UnsupportedOperationException, and the benchmarks that run it don't take
+ * them as a parameter.
+ */
+abstract class Subject implements Iterable<Integer> {
+
+	abstract Integer get(int index);
+
+	abstract void set(int index, Integer value);
+
+	abstract void add(Integer value);
+
+	abstract void add(int index, Integer value);
+
+	abstract Integer remove(int index);
+
+	abstract void addFirst(Integer value);
+
+	abstract Integer removeFirst();
+
+	abstract Integer removeLast();
+
+	/**
+	 * A new structure holding size elements, all of them below 128, so
+	 * that boxing them doesn't allocate.
+	 * @param name - BDLList, Block, ArrayList, LinkedList or ArrayDeque
+	 * @param size - the number of elements
+	 * @return The structure, seen as a Subject.
+	 */
+	static Subject of(String name, int size) {
+		Subject result;
+		switch (name) {
+		case "BDLList": result = bdllist(new BDLList<Integer>()); break;
+		//Room for the element added before each remove
+		case "Block": result = block(new Block<Integer>(size + 1)); break;
+		case "ArrayList": result = list(new ArrayList<Integer>()); break;
+		case "LinkedList": result = list(new LinkedList<Integer>()); break;
+		case "ArrayDeque": result = deque(new ArrayDeque<Integer>()); break;
+		default: throw new IllegalArgumentException("unknown structure " + name);
+		}
+		for (int i = 0; i < size; i++)
+			result.add(i % 128);
+		return result;
+	}
+
+	private static Subject bdllist(BDLList<Integer> list) {
+		return new Subject() {
+			Integer get(int index) { return list.get(index); }
+			void set(int index, Integer value) { list.set(index, value); }
+			void add(Integer value) { list.add(value); }
+			void add(int index, Integer value) { list.add(index, value); }
+			Integer remove(int index) { return list.remove(index); }
+			void addFirst(Integer value) { list.add(0, value); }
+			Integer removeFirst() { return list.remove(0); }
+			Integer removeLast() { return list.remove(list.size() - 1); }
+			public Iterator<Integer> iterator() { return list.iterator(); }
+			public String toString() { return list.toString(); }
+		};
+	}
+
+	private static Subject block(Block<Integer> block) {
+		return new Subject() {
+			Integer get(int index) { return block.get(index); }
+			void set(int index, Integer value) { block.set(index, value); }
+			void add(Integer value) { block.addLast(value); }
+			void add(int index, Integer value) { block.add(index, value); }
+			Integer remove(int index) {
+				Integer result = block.get(index);
+				block.remove(index);
+				return result;
+			}
+			void addFirst(Integer value) { block.addFirst(value); }
+			Integer removeFirst() {
+				Integer result = block.getFirst();
+				block.removeFirst();
+				return result;
+			}
+			Integer removeLast() {
+				Integer result = block.getLast();
+				block.removeLast();
+				return result;
+			}
+			public Iterator<Integer> iterator() {
+				return new Iterator<Integer>() {
+					private int next = 0;
+
+					public boolean hasNext() { return next < block.size(); }
+
+					public Integer next() {
+						if (next >= block.size())
+							throw new NoSuchElementException();
+						return block.get(next++);
+					}
+				};
+			}
+			public String toString() { return block.toString(); }
+		};
+	}
+
+	private static Subject list(List<Integer> list) {
+		return new Subject() {
+			Integer get(int index) { return list.get(index); }
+			void set(int index, Integer value) { list.set(index, value); }
+			void add(Integer value) { list.add(value); }
+			void add(int index, Integer value) { list.add(index, value); }
+			Integer remove(int index) { return list.remove(index); }
+			void addFirst(Integer value) { list.add(0, value); }
+			Integer removeFirst() { return list.remove(0); }
+			Integer removeLast() { return list.remove(list.size() - 1); }
+			public Iterator<Integer> iterator() { return list.iterator(); }
+			public String toString() { return list.toString(); }
+		};
+	}
+
+	private static Subject deque(ArrayDeque<Integer> deque) {
+		return new Subject() {
+			Integer get(int index) { throw new UnsupportedOperationException(); }
+			void set(int index, Integer value) { throw new UnsupportedOperationException(); }
+			void add(Integer value) { deque.addLast(value); }
+			void add(int index, Integer value) { throw new UnsupportedOperationException(); }
+			Integer remove(int index) { throw new UnsupportedOperationException(); }
+			void addFirst(Integer value) { deque.addFirst(value); }
+			Integer removeFirst() { return deque.removeFirst(); }
+			Integer removeLast() { return deque.removeLast(); }
+			public Iterator<Integer> iterator() { return deque.iterator(); }
+			public String toString() { return deque.toString(); }
+		};
+	}
+}
@@ -0,0 +1,235 @@
+#!/usr/bin/env python3
+"""
+Generates the primitive specializations of Block and BDLList.
+
+    IntBlock.java                     from Block.java
+    LongBlock.java, DoubleBlock.java  from Block.java, through IntBlock
+    LongBDLList.java, DoubleBDLList.java  from IntBDLList.java
+
+Block.java and IntBDLList.java are the templates and the only files to edit
+by hand; every other file above is overwritten. Run it from the root of the
+repository after changing a template:
+
+    python3 tools/specialize.py          # rewrite the generated files
+    python3 tools/specialize.py --check  # fail if any of them is stale
+
+The rewrites are plain text substitutions. Each one must match the template
+at least once, so a template change that breaks a substitution stops the
+generator instead of producing a half specialized file: fix the substitution
+here along with the template.
+"""
+import os
+import re
+import sys
+
+HEADER = '// Generated by tools/specialize.py from %s. Do not edit by hand.\n'
+
+
+class Template:
+
+    def __init__(self, name, text=None):
+        if text is None:
+            with open(name) as f:
+                text = f.read()
+            if text.startswith('// Template'):
+                text = text.split('\n', 1)[1]
+        self.name = name
+        self.text = text
+
+    def rep(self, old, new, count=None):
+        found = self.text.count(old)
+        if found == 0 or count is not None and found != count:
+            sys.exit('%s: expected %s of %r, found %d'
+                     % (self.name, count or 'some', old, found))
+        self.text = self.text.replace(old, new)
+
+    def sub(self, pattern, new):
+        self.text, found = re.subn(pattern, new, self.text)
+        if found == 0:
+            sys.exit('%s: no match for %r' % (self.name, pattern))
+
+    def source(self):
+        return HEADER % self.name + self.text
+
+
+def int_block():
+    t = Template('Block.java')
+    # The templates keep some trailing spaces, written as escapes here
+    t.rep(' * A block has a capacity and holds a sequence of elements'
+          ' (in a circular array).  \n'
+          ' * Blocks are mutable. Null values are NOT allowed. \n',
+          ' * A block has a capacity and holds a sequence of ints'
+          ' (in a circular array).  \n' ''' * Blocks are mutable. This is the primitive counterpart of Block, holding
+ * the values themselves instead of references to boxed values.
+''')
+    t.rep(''' * @param <E> the type of the elements in this block
+ *\x20
+ * @author antonialopes  (AED 16/17 @ FCUL-DI)
+ */
+public class Block<E> implements Cloneable{''', ''' * @see Block
+ */
+public class IntBlock implements Cloneable{''')
+    t.rep('''	private E[] elems;''', '''	private int[] elems;''')
+    t.rep('''	@SuppressWarnings("unchecked")
+	public Block(int capacity) {
+		elems = (E[]) new Object[capacity];''', '''	public IntBlock(int capacity) {
+		elems = new int[capacity];''')
+    t.rep('E element', 'int element')
+    t.rep(' && element!=null', '')
+    t.rep('''	public E get''', '''	public int get''')
+    # Primitive slots hold no references, so they needn't be cleared
+    t.rep('\t\telems[indexFirst] = null; \n', '')
+    t.rep('\t\telems[indexLast] = null; \n', '')
+    t.rep('''				elems[indexFirst] = null;
+''', '')
+    t.rep('''				elems[indexLast] = null;
+''', '')
+    t.rep('''			for (int i = 0; i < count; i++) {
+				indexFirst = inc(indexFirst);
+			}
+''', '''			indexFirst = plus(indexFirst, count);
+''')
+    t.rep('''			for (int i = 0; i < count; i++) {
+				indexLast = dec(indexLast);
+			}
+''', '''			indexLast = plus(indexLast, elems.length - count);
+''')
+    t.rep('''	public Block<E> clone() {
+		try {
+			@SuppressWarnings("unchecked")
+			Block<E> result = (Block<E>) super.clone();''', '''	public IntBlock clone() {
+		try {
+			IntBlock result = (IntBlock) super.clone();''')
+    t.rep('''	 * Clones the backbone (the array) of the block, but not its elements.
+''', '''	 * Clones the backbone (the array) of the block.
+''')
+    t.rep('''	@SuppressWarnings("unchecked")
+	@Override
+	public boolean equals(Object other) {
+		return this == other || other instanceof Block
+				&& equalBlocks((Block<E>) other);
+	}''', '''	@Override
+	public boolean equals(Object other) {
+		return this == other || other instanceof IntBlock
+				&& equalBlocks((IntBlock) other);
+	}
+
+	/**
+	 * @return A hash code consistent with equals.
+	 */
+	@Override
+	public int hashCode() {
+		int result = capacity();
+		int curr = this.indexFirst;
+		for (int i = 1; i <= size(); i++){
+			result = 31 * result + Integer.hashCode(elems[curr]);
+			curr = inc(curr);
+		}
+		return result;
+	}''')
+    t.rep('''	private boolean equalBlocks(Block<E> other) {''',
+          '''	private boolean equalBlocks(IntBlock other) {''')
+    t.rep('''			if (!this.elems[curr].equals(other.elems[otherCurr]))''',
+          '''			if (this.elems[curr] != other.elems[otherCurr])''')
+    t.rep('''				result.add(elems[curr].toString());''',
+          '''				result.add(String.valueOf(elems[curr]));''')
+    t.rep('''				result.add(elems[i].toString());''',
+          '''				result.add(String.valueOf(elems[i]));''')
+    t.rep('''import java.util.Comparator;
+''', '')
+    t.rep('''	 * Sorts the block's sequence in place, in the order induced by a\x20
+	 * comparator. The sort is stable.''', '''	 * Sorts the block's sequence in place, in ascending order.''')
+    t.rep('''	 * @param c The comparator.
+	 */
+	public void sort(Comparator<? super E> c) {''', '''	 */
+	public void sort() {''')
+    t.rep('''		Arrays.sort(elems, indexFirst, indexFirst + size, c);''',
+          '''		Arrays.sort(elems, indexFirst, indexFirst + size);''')
+    t.rep('''			E temp = elems[i];''', '''			int temp = elems[i];''')
+    return t
+
+
+KINDS = {
+    'long': ('Long', 'long', 'Long', 'OfLong', 'nextLong', 'LongStream', 'longStream'),
+    'double': ('Double', 'double', 'Double', 'OfDouble', 'nextDouble', 'DoubleStream', 'doubleStream'),
+}
+
+
+def block(kind, int_source):
+    cap, prim, box = KINDS[kind][:3]
+    t = Template('Block.java', int_source)
+    t.rep('IntBlock', cap + 'Block')
+    t.rep('sequence of ints', 'sequence of %ss' % prim)
+    t.rep('int[] elems', '%s[] elems' % prim)
+    t.rep('new int[capacity]', 'new %s[capacity]' % prim)
+    t.rep('int element', '%s element' % prim)
+    t.rep('int temp', '%s temp' % prim)
+    for m in ['getFirst()', 'getLast()', 'get(int index)']:
+        t.rep('public int ' + m, 'public %s %s' % (prim, m))
+    t.rep('Integer.hashCode(elems', box + '.hashCode(elems')
+    if kind == 'double':
+        t.rep('if (this.elems[curr] != other.elems[otherCurr])',
+              'if (Double.compare(this.elems[curr], other.elems[otherCurr]) != 0)')
+    return t
+
+
+def bdllist(kind):
+    cap, prim, box, of, nxt, stream, method = KINDS[kind]
+    t = Template('IntBDLList.java')
+    t.rep('IntBDLList', cap + 'BDLList')
+    t.rep('IntBlock', cap + 'Block')
+    t.rep('A list of ints', 'A list of %ss' % prim)
+    t.rep('stored in int arrays', 'stored in %s arrays' % prim)
+    t.rep('Iterable<Integer>', 'Iterable<%s>' % box)
+    t.rep('PrimitiveIterator.OfInt', 'PrimitiveIterator.' + of)
+    t.rep('nextInt()', nxt + '()')
+    t.rep('IntStream', stream)
+    t.rep('intStream', method)
+    t.rep('int value', '%s value' % prim)
+    t.rep('int[] values', '%s[] values' % prim)
+    t.rep('public int[] toArray', 'public %s[] toArray' % prim)
+    t.rep('int[] result = new int[size]', '%s[] result = new %s[size]' % (prim, prim))
+    for m in ['get(int index)', 'remove(int index)', 'removeFirst()', 'removeLast()', nxt + '()']:
+        t.rep('public int ' + m, 'public %s %s' % (prim, m))
+    t.sub(r'\bint result = (node\.elem\.get|first\.elem\.getFirst|last\.elem\.getLast)',
+          prim + r' result = \1')
+    if ('an %sBlock' % cap) in t.text:
+        t.rep('an %sBlock' % cap, 'a %sBlock' % cap)
+    # Element sizes follow the type, the counts of the format stay ints
+    t.rep('Integer.BYTES', box + '.BYTES')
+    t.rep('BDLListFormat.reserve(channel, buffer, %s.BYTES);\n\t\t\tbuffer.putInt(count)' % box,
+          'BDLListFormat.reserve(channel, buffer, Integer.BYTES);\n\t\t\tbuffer.putInt(count)', 1)
+    t.rep('BDLListFormat.require(channel, buffer, %s.BYTES);\n\t\t\tint count' % box,
+          'BDLListFormat.require(channel, buffer, Integer.BYTES);\n\t\t\tint count', 1)
+    t.rep('buffer.putInt(node.elem.get(i))', 'buffer.put%s(node.elem.get(i))' % box)
+    t.rep('addLast(buffer.getInt())', 'addLast(buffer.get%s())' % box)
+    return t
+
+
+def main():
+    check = sys.argv[1:] == ['--check']
+    if sys.argv[1:] and not check:
+        sys.exit(__doc__)
+    ints = int_block()
+    outputs = {'IntBlock.java': ints.source()}
+    for kind in KINDS:
+        cap = KINDS[kind][0]
+        outputs[cap + 'Block.java'] = block(kind, ints.text).source()
+        outputs[cap + 'BDLList.java'] = bdllist(kind).source()
+    stale = []
+    for name, source in outputs.items():
+        current = open(name).read() if os.path.exists(name) else None
+        if current == source:
+            continue
+        stale.append(name)
+        if not check:
+            with open(name, 'w') as f:
+                f.write(source)
+    for name in stale:
+        print(('stale: ' if check else 'wrote: ') + name)
+    if check and stale:
+        sys.exit(1)
+
+
+if __name__ == '__main__':
+    main()